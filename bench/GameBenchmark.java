@@ -0,0 +1,226 @@
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Class: GameBenchmark
+ * Author: Yannis Seimenis
+ * Description: Micro benchmarks for the hot paths of Game. Every operation is measured on an empty,
+ * a half full and a nearly topped out board and reported as operations per second and bytes
+ * allocated per operation.
+ * Usage: java GameBenchmark [filter] [measurementMillis]
+ */
+public class GameBenchmark {
+    /**
+     * Global variables
+     */
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] BOARD_NAMES = {"empty", "half", "topped"};
+    private static final int[] BOARD_FILLED_ROWS = {0, 10, 17};
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile long sink;
+
+    /**
+     * Operation
+     * A single benchmarked operation, the returned value is consumed so the call cannot be optimised away
+     */
+    private interface Operation {
+        long run();
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        long iterationMillis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        System.out.printf(Locale.ROOT, "%-28s %-8s %16s %12s%n", "Benchmark", "Board", "ops/s", "B/op");
+        for (int b = 0; b < BOARD_NAMES.length; b++) {
+            int filledRows = BOARD_FILLED_ROWS[b];
+            for (String name : benchmarkNames()) {
+                if (!name.contains(filter)) {
+                    continue;
+                }
+                Operation operation = createOperation(name, filledRows);
+                double[] result = measure(operation, iterationMillis);
+                System.out.printf(Locale.ROOT, "%-28s %-8s %16.0f %12.2f%n", name, BOARD_NAMES[b], result[0], result[1]);
+            }
+        }
+    }
+
+    /**
+     * benchmarkNames()
+     * @return - Returns the names of all benchmarks
+     */
+    private static ArrayList<String> benchmarkNames() {
+        ArrayList<String> names = new ArrayList<>();
+        names.add("isTouchingBottomOrBlock");
+        names.add("isTouchingSideOrBlock");
+        names.add("getDropDistance");
+        names.add("rotateBlock");
+        names.add("checkForFullRows");
+        names.add("addCurrentToSetBlock");
+        names.add("pieceLifecycle");
+        names.add("autoPlayerFindPlacement");
+        names.add("autoPlayerParallel");
+        names.add("captureSnapshot");
+        names.add("saveRestoreState");
+        return names;
+    }
+
+    /**
+     * createOperation(String name, int filledRows)
+     * Creates a new game with the given board and the operation to benchmark on it
+     * @param name - Name of the benchmark
+     * @param filledRows - Number of rows filled from the bottom of the board
+     * @return - Returns the operation to measure
+     */
+    private static Operation createOperation(String name, int filledRows) {
+        Game game = createGame(filledRows);
+        return switch (name) {
+            case "isTouchingBottomOrBlock" -> () -> game.isTouchingBottomOrBlock() ? 1 : 0;
+            case "isTouchingSideOrBlock" -> () -> (game.isTouchingSideOrBlock(0) ? 1 : 0) + (game.isTouchingSideOrBlock(1) ? 2 : 0);
+            case "getDropDistance" -> game::getDropDistance;
+            case "rotateBlock" -> () -> {
+                game.rotateBlock();
+                return game.getCurrentBlockPos()[0][0];
+            };
+            case "checkForFullRows" -> {
+                game.addCurrentToSetBlock();
+                yield () -> game.checkForFullRows().size();
+            }
+            case "addCurrentToSetBlock" -> () -> {
+                game.addCurrentToSetBlock();
+                int[][] blockPos = game.getCurrentBlockPos();
+                for (int i = 0; i < 4; i++) {
+                    game.removeFromSetBlocks(blockPos[i][0], blockPos[i][1]);
+                }
+                return blockPos[0][1];
+            };
+            case "pieceLifecycle" -> () -> {
+                long steps = 0;
+                while (!game.step()) {
+                    steps++;
+                }
+                if (!game.isRunning()) {
+                    refill(game, filledRows);
+                }
+                return steps;
+            };
+            case "autoPlayerFindPlacement" -> {
+                AutoPlayer autoPlayer = new AutoPlayer();
+                yield () -> autoPlayer.findPlacement(game);
+            }
+            case "autoPlayerParallel" -> {
+                AutoPlayer autoPlayer = new AutoPlayer(AutoPlayer.DEFAULT_WEIGHTS, true);
+                yield () -> autoPlayer.findPlacement(game);
+            }
+            case "captureSnapshot" -> () -> GameSnapshot.capture(game, 0).getDropDistance();
+            case "saveRestoreState" -> {
+                ByteBuffer state = ByteBuffer.allocate(game.getStateSize());
+                yield () -> {
+                    state.clear();
+                    game.writeState(state);
+                    state.flip();
+                    game.readState(state);
+                    return game.getCurrentBlockX();
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown benchmark: " + name);
+        };
+    }
+
+    /**
+     * createGame(int filledRows)
+     * Creates a started game with the bottom rows filled
+     * @param filledRows - Number of rows to fill from the bottom
+     * @return - Returns the new game
+     */
+    private static Game createGame(int filledRows) {
+        Game game = new Game();
+        game.startGame();
+        fillRows(game, filledRows);
+        return game;
+    }
+
+    /**
+     * refill(Game game, int filledRows)
+     * Resets a finished game and fills the board again
+     * @param game - Game to reset
+     * @param filledRows - Number of rows to fill from the bottom
+     */
+    private static void refill(Game game, int filledRows) {
+        game.resetGame();
+        fillRows(game, filledRows);
+    }
+
+    /**
+     * fillRows(Game game, int filledRows)
+     * Fills rows from the bottom leaving one gap per row so no row is ever full
+     * @param game - Game to fill
+     * @param filledRows - Number of rows to fill
+     */
+    private static void fillRows(Game game, int filledRows) {
+        for (int i = 0; i < filledRows; i++) {
+            int y = Board.HEIGHT - 1 - i;
+            int gap = (i * 3) % Board.WIDTH;
+            for (int x = 0; x < Board.WIDTH; x++) {
+                if (x != gap) {
+                    game.addToSetBlocks(new int[]{x, y}, i % BlockShapes.BLOCK_TYPES);
+                }
+            }
+        }
+    }
+
+    /**
+     * measure(Operation operation, long iterationMillis)
+     * Runs warmup and measurement iterations of an operation
+     * @param operation - Operation to measure
+     * @param iterationMillis - Length of one iteration in milliseconds
+     * @return - Returns the average operations per second and bytes allocated per operation
+     */
+    private static double[] measure(Operation operation, long iterationMillis) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(operation, iterationMillis);
+        }
+        double opsPerSecond = 0;
+        double bytesPerOp = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            double[] result = runIteration(operation, iterationMillis);
+            opsPerSecond += result[0];
+            bytesPerOp += result[1];
+        }
+        return new double[]{opsPerSecond / MEASUREMENT_ITERATIONS, bytesPerOp / MEASUREMENT_ITERATIONS};
+    }
+
+    /**
+     * runIteration(Operation operation, long iterationMillis)
+     * Calls an operation in batches until the iteration time has passed
+     * @param operation - Operation to call
+     * @param iterationMillis - Length of the iteration in milliseconds
+     * @return - Returns operations per second and bytes allocated per operation
+     */
+    private static double[] runIteration(Operation operation, long iterationMillis) {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long ops = 0;
+        long result = 0;
+        long startBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long now;
+        do {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                result += operation.run();
+            }
+            ops += BATCH_SIZE;
+            now = System.nanoTime();
+        } while (now < deadline);
+        long allocated = THREAD_BEAN.getCurrentThreadAllocatedBytes() - startBytes;
+        sink = result;
+        return new double[]{ops * 1e9 / (now - start), (double) allocated / ops};
+    }
+}
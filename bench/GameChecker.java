@@ -0,0 +1,495 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+/**
+ * Class: GameChecker
+ * Author: Yannis Seimenis
+ * Description: Randomised consistency checks for the game logic. The board is compared cell by cell and row
+ * by row with a plain grid of booleans after every operation, at widths on both sides of the 64 column word
+ * boundary, and block positions are tested against the same grid. Recorded sessions are played back and
+ * compared with the game they were recorded from. Snapshot deltas are decoded and compared with the snapshot
+ * they were written from, with the default and the largest preview. Saved games are restored and played in
+ * lockstep with the original. The formats are checked on the standard board and on larger boards with hidden
+ * rows. The first mismatch stops the run with an exception naming the check.
+ * Usage: java -ea GameChecker [seed] [rounds]
+ */
+public class GameChecker {
+    /**
+     * Global variables
+     */
+    private static final int[] WIDTHS = {4, 10, 31, 40, 63, 64, 65, 100, 127};
+    private static final int[] HIDDEN_ROWS = {0, 2};
+    private static final int MAX_VISIBLE_HEIGHT = 100;
+    //Width, visible height and hidden rows of the boards the formats are checked on
+    private static final int[][] GAME_SIZES = {{Board.WIDTH, Board.HEIGHT, 0}, {40, 100, 2}, {127, 120, 7}};
+    private static final int[] PREVIEW_SIZES = {Game.DEFAULT_PREVIEW_SIZE, BlockQueue.MAX_SAVED_BLOCKS};
+    private static final int CLEAR_ALL_INTERVAL = 500;
+    private static final int KEY_FRAME_INTERVAL = 500;
+    private static final int LOCKSTEP_SEEDS = 29;
+    private static final int LOCKSTEP_STEPS = 3000;
+    private static final int REPLAY_SESSIONS = 10;
+    private static final int REPLAY_EVENTS = 20000;
+
+    private static long checks = 0;
+
+    public static void main(String[] args) throws IOException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        checkBoard(seed, rounds);
+        checkReplay(seed);
+        checkSnapshots(seed, rounds);
+        checkSaveRestore(seed);
+        System.out.println("All checks passed");
+    }
+
+    /**
+     * checkBoard(long seed, int rounds)
+     * Applies random operations to boards of every checked size and compares them with a grid of booleans
+     * after each one
+     * @param seed - Seed of the operations
+     * @param rounds - Number of operations per board size
+     */
+    private static void checkBoard(long seed, int rounds) {
+        long start = checks;
+        Random random = new Random(seed);
+        for (int width : WIDTHS) {
+            for (int hiddenRows : HIDDEN_ROWS) {
+                int visibleHeight = Math.min(MAX_VISIBLE_HEIGHT, Board.MAX_SIZE - hiddenRows);
+                Board board = new Board(width, visibleHeight, hiddenRows);
+                int height = board.getHeight();
+                boolean[][] cells = new boolean[height][width];
+                for (int round = 0; round < rounds; round++) {
+                    String where = width + "x" + height + " round " + round;
+                    if (round % CLEAR_ALL_INTERVAL == 0) {
+                        board.clearAll();
+                        cells = new boolean[height][width];
+                    }
+                    int op = random.nextInt(10);
+                    if (op < 4) {
+                        int x = random.nextInt(width);
+                        int y = random.nextInt(height);
+                        board.set(x, y, random.nextInt(BlockShapes.BLOCK_TYPES));
+                        cells[y][x] = true;
+                    } else if (op < 6) {
+                        int x = random.nextInt(width);
+                        int y = random.nextInt(height);
+                        board.clear(x, y);
+                        cells[y][x] = false;
+                    } else if (op == 6) {
+                        int y = random.nextInt(height);
+                        for (int x = 0; x < width; x++) {
+                            board.set(x, y, random.nextInt(BlockShapes.BLOCK_TYPES));
+                            cells[y][x] = true;
+                        }
+                    } else if (op == 7) {
+                        int top = random.nextInt(height);
+                        int bottom = Math.min(height - 1, top + random.nextInt(4));
+                        cells = checkClearFullRows(board, cells, top, bottom, where);
+                    } else if (op == 8) {
+                        checkFits(board, cells, random, where);
+                    } else if (op == 9) {
+                        //Continue on a board restored from the saved cells so the rebuilt rows are checked too
+                        ByteBuffer state = ByteBuffer.allocate(board.getStateSize());
+                        board.writeState(state);
+                        check(!state.hasRemaining(), "board state size " + where);
+                        state.flip();
+                        board = new Board(width, visibleHeight, hiddenRows);
+                        board.readState(state);
+                    }
+                    compareBoard(board, cells, where);
+                }
+            }
+        }
+        report("board", start);
+    }
+
+    /**
+     * checkClearFullRows(Board board, boolean[][] cells, int top, int bottom, String where)
+     * Clears the full rows between top and bottom on the board and on the grid and compares the removed rows
+     * @param board - Board to clear
+     * @param cells - Grid matching the board
+     * @param top - Highest row that can be cleared
+     * @param bottom - Lowest row that can be cleared
+     * @param where - Description of the check for the error message
+     * @return - Returns the grid after the clear
+     */
+    private static boolean[][] checkClearFullRows(Board board, boolean[][] cells, int top, int bottom, String where) {
+        int height = cells.length;
+        int clearedRows = board.clearFullRows(top, bottom);
+        List<boolean[]> kept = new ArrayList<>();
+        int removed = 0;
+        for (int y = 0; y < height; y++) {
+            boolean full = y >= top && y <= bottom;
+            for (int x = 0; full && x < cells[y].length; x++) {
+                full = cells[y][x];
+            }
+            check(Board.isRowCleared(clearedRows, y) == full, "cleared row " + y + " " + where);
+            if (full) {
+                removed++;
+            } else {
+                kept.add(cells[y]);
+            }
+        }
+        check(Board.getClearedRowCount(clearedRows) == removed, "cleared row count " + where);
+        boolean[][] result = new boolean[height][cells[0].length];
+        for (int i = 0; i < kept.size(); i++) {
+            result[removed + i] = kept.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * checkFits(Board board, boolean[][] cells, Random random, String where)
+     * Tests a random block position, partly outside the board, and the drop distance of a fitting block
+     * against the grid. On wide boards half of the blocks straddle the 64 column word boundary
+     * @param board - Board to test
+     * @param cells - Grid matching the board
+     * @param random - Source of the block and position
+     * @param where - Description of the check for the error message
+     */
+    private static void checkFits(Board board, boolean[][] cells, Random random, String where) {
+        int blockType = random.nextInt(BlockShapes.BLOCK_TYPES);
+        int rotation = random.nextInt(BlockShapes.getRotationCount(blockType));
+        int width = cells[0].length;
+        int x = width > 64 && random.nextInt(2) == 0 ? 58 + random.nextInt(10) : random.nextInt(width + 6) - 3;
+        int y = random.nextInt(cells.length + 6) - 3;
+        boolean fits = fits(cells, blockType, rotation, x, y);
+        check(board.fits(blockType, rotation, x, y) == fits,
+                "fits of block " + blockType + " at " + x + "," + y + " " + where);
+        if (fits) {
+            int distance = 0;
+            while (fits(cells, blockType, rotation, x, y + distance + 1)) {
+                distance++;
+            }
+            check(board.dropDistance(blockType, rotation, x, y) == distance,
+                    "drop distance at " + x + "," + y + " " + where);
+        }
+    }
+
+    /**
+     * fits(boolean[][] cells, int blockType, int rotation, int x, int y)
+     * @return - Returns true if every cell of the block is inside the grid and empty
+     */
+    private static boolean fits(boolean[][] cells, int blockType, int rotation, int x, int y) {
+        for (int i = 0; i < 4; i++) {
+            int cellX = x + BlockShapes.getCellX(blockType, rotation, i);
+            int cellY = y + BlockShapes.getCellY(blockType, rotation, i);
+            if (cellX < 0 || cellX >= cells[0].length || cellY < 0 || cellY >= cells.length || cells[cellY][cellX]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * compareBoard(Board board, boolean[][] cells, String where)
+     * Compares every cell, row and column top of the board with the grid
+     * @param board - Board to compare
+     * @param cells - Expected cells
+     * @param where - Description of the check for the error message
+     */
+    private static void compareBoard(Board board, boolean[][] cells, String where) {
+        for (int y = 0; y < cells.length; y++) {
+            int row = 0;
+            int count = 0;
+            for (int x = 0; x < cells[y].length; x++) {
+                if (board.isOccupied(x, y) != cells[y][x]) {
+                    fail("cell " + x + "," + y + " " + where);
+                }
+                if ((board.getCellType(x, y) != Board.EMPTY) != cells[y][x]) {
+                    fail("cell type " + x + "," + y + " " + where);
+                }
+                //getRow only holds the first 32 columns
+                row |= cells[y][x] && x < 32 ? 1 << x : 0;
+                count += cells[y][x] ? 1 : 0;
+            }
+            check(board.getRow(y) == row, "row " + y + " " + where);
+            check(board.getRowCount(y) == count, "row count " + y + " " + where);
+            check(board.isRowFull(y) == (count == cells[y].length), "full row " + y + " " + where);
+            check(board.isOccupied(-1, y) && board.isOccupied(cells[y].length, y), "walls " + y + " " + where);
+        }
+        check(board.isOccupied(0, cells.length), "floor " + where);
+        for (int x = 0; x < cells[0].length; x++) {
+            int top = cells.length;
+            for (int y = cells.length - 1; y >= 0; y--) {
+                if (cells[y][x]) {
+                    top = y;
+                }
+            }
+            if (board.getColumnTop(x) != top) {
+                fail("column top " + x + " " + where);
+            }
+        }
+        checks++;
+    }
+
+    /**
+     * checkReplay(long seed)
+     * Records sessions of random inputs, fast fall toggles and restarts to a temporary file and checks that
+     * each replay ends in the same state with the recorded score. Half way through, every session restores
+     * a game saved from another seed. Sessions are recorded on every checked board size
+     * @param seed - Seed of the games and inputs
+     * @throws IOException - If the temporary replay file can not be written
+     */
+    private static void checkReplay(long seed) throws IOException {
+        long start = checks;
+        Random random = new Random(seed);
+        Path path = Files.createTempFile("checker", ".trp");
+        try {
+            for (int session = 0; session < REPLAY_SESSIONS; session++) {
+                int[] size = GAME_SIZES[session % GAME_SIZES.length];
+                Game game = new Game(seed + session, size[0], size[1], size[2]);
+                long tick = 0;
+                try (ReplayRecorder recorder = new ReplayRecorder(path, seed + session, game.getPreviewSize(),
+                        size[0], size[1], size[2])) {
+                    recorder.record(tick, ReplayRecorder.OP_START);
+                    game.startGame();
+                    for (int i = 0; i < REPLAY_EVENTS; i++) {
+                        if (i == REPLAY_EVENTS / 2) {
+                            Game saved = new Game(seed + session + REPLAY_SESSIONS, size[0], size[1], size[2]);
+                            game.readState(ByteBuffer.wrap(saveState(playedGame(saved, random))));
+                            recorder.recordState(tick, game);
+                        }
+                        if (!game.isRunning()) {
+                            recorder.record(tick, ReplayRecorder.OP_RESET);
+                            game.resetGame();
+                        }
+                        int event = random.nextInt(20);
+                        if (event < GameInput.values().length) {
+                            GameInput input = GameInput.values()[event];
+                            recorder.record(tick, input);
+                            game.apply(input);
+                        } else if (event == 10) {
+                            recorder.record(tick, game.isFastFall() ? ReplayRecorder.OP_FAST_FALL_OFF
+                                    : ReplayRecorder.OP_FAST_FALL_ON);
+                            game.setFastFall(!game.isFastFall());
+                        } else {
+                            game.tick();
+                            tick++;
+                        }
+                    }
+                    recorder.close(tick, game.getScore());
+                }
+                ReplayPlayer player = ReplayPlayer.open(path);
+                player.play();
+                String where = "session " + session + " on " + size[0] + "x" + size[1] + "+" + size[2];
+                check(player.isEnded() && player.getTicks() == tick, "replay length " + where);
+                check(player.getRecordedScore() == game.getScore(), "recorded score " + where);
+                checkSameGame(game, player.getGame(), "replay " + where);
+                check(Arrays.equals(saveState(game), saveState(player.getGame())), "replay state " + where);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        report("replay", start);
+    }
+
+    /**
+     * playedGame(Game game, Random random)
+     * @param game - New game to play
+     * @param random - Source of the inputs
+     * @return - Returns the game, running and part way through
+     */
+    private static Game playedGame(Game game, Random random) {
+        game.startGame();
+        for (int i = 0; i < 200 && game.isRunning(); i++) {
+            playRandomInput(game, random);
+        }
+        if (!game.isRunning()) {
+            game.resetGame();
+        }
+        return game;
+    }
+
+    /**
+     * checkSnapshots(long seed, int rounds)
+     * Plays random inputs and sends every snapshot as a delta, with a key frame every KEY_FRAME_INTERVAL
+     * snapshots, and compares the decoded snapshot with the original. Every board is played with each checked
+     * preview size, the delta buffer is sized exactly to getMaxDeltaSize(), so a larger delta overflows it.
+     * A preview that would not fit is rejected when the game is created
+     * @param seed - Seed of the games and inputs
+     * @param rounds - Number of snapshots per board size
+     */
+    private static void checkSnapshots(long seed, int rounds) {
+        long start = checks;
+        Random random = new Random(seed);
+        try {
+            new Game(new UniformRandomizer(seed), BlockQueue.MAX_SAVED_BLOCKS + 1);
+            fail("preview of " + (BlockQueue.MAX_SAVED_BLOCKS + 1) + " accepted");
+        } catch (IllegalArgumentException e) {
+            checks++;
+        }
+        for (int[] size : GAME_SIZES) {
+            for (int previewSize : PREVIEW_SIZES) {
+                Game game = new Game(new UniformRandomizer(seed), previewSize, size[0], size[1], size[2]);
+                game.startGame();
+                ByteBuffer delta = ByteBuffer.allocate(GameSnapshot.capture(game, 0).getMaxDeltaSize());
+                GameSnapshot sent = null;
+                GameSnapshot received = null;
+                for (int round = 0; round < rounds; round++) {
+                    if (!game.isRunning()) {
+                        game.resetGame();
+                    }
+                    playRandomInput(game, random);
+                    GameSnapshot snapshot = GameSnapshot.capture(game, round);
+                    if (round % KEY_FRAME_INTERVAL == 0) {
+                        sent = null;
+                        received = null;
+                    }
+                    delta.clear();
+                    snapshot.writeDelta(sent, delta);
+                    delta.flip();
+                    received = GameSnapshot.readDelta(received, delta);
+                    String where = size[0] + "x" + size[1] + "+" + size[2] + " preview " + previewSize
+                            + " round " + round;
+                    check(!delta.hasRemaining(), "delta length " + where);
+                    check(received.sameState(snapshot) && received.getTick() == round, "snapshot " + where);
+                    check(received.getWidth() == size[0] && received.getHeight() == size[1] + size[2]
+                            && received.getHiddenRows() == size[2], "snapshot size " + where);
+                    sent = snapshot;
+                    checks++;
+                }
+            }
+        }
+        report("snapshot delta", start);
+    }
+
+    /**
+     * checkSaveRestore(long seed)
+     * Saves games of every randomizer and board size part way through, restores them into games created with
+     * other seeds and plays both in lockstep, comparing the saved records after every step. The auto player
+     * only plays the standard board, larger boards are led in with random inputs. Every line clear of the
+     * lead in is saved and restored, so the removed rows survive the round trip
+     * @param seed - Seed of the games and inputs
+     */
+    private static void checkSaveRestore(long seed) {
+        long start = checks;
+        List<LongFunction<Randomizer>> randomizers = List.of(UniformRandomizer::new, BagRandomizer::new,
+                HistoryRandomizer::new);
+        for (int[] size : GAME_SIZES) {
+            for (int kind = 0; kind < randomizers.size(); kind++) {
+                for (int i = 0; i < LOCKSTEP_SEEDS; i++) {
+                    long gameSeed = BatchSimulator.gameSeed(seed, i);
+                    String where = size[0] + "x" + size[1] + "+" + size[2] + " randomizer " + kind + " seed " + i;
+                    Game game = new Game(randomizers.get(kind).apply(gameSeed), Game.DEFAULT_PREVIEW_SIZE,
+                            size[0], size[1], size[2]);
+                    Random random = new Random(gameSeed);
+                    game.startGame();
+                    AutoPlayer autoPlayer = game.getBoard().isStandard() ? new AutoPlayer() : null;
+                    for (int j = 0; j < i * 7 && game.isRunning(); j++) {
+                        if (autoPlayer != null) {
+                            autoPlayer.placeBlock(game);
+                            game.hardDrop();
+                        } else {
+                            playRandomInput(game, random);
+                        }
+                        if (game.getLastClearedRows() != 0) {
+                            Game cleared = new Game(randomizers.get(kind).apply(0), Game.DEFAULT_PREVIEW_SIZE,
+                                    size[0], size[1], size[2]);
+                            cleared.readState(ByteBuffer.wrap(saveState(game)));
+                            check(cleared.getLastClearedRows() == game.getLastClearedRows(), "cleared rows " + where);
+                            checks++;
+                        }
+                    }
+
+                    Game restored = new Game(randomizers.get(kind).apply(gameSeed + 1), Game.DEFAULT_PREVIEW_SIZE,
+                            size[0], size[1], size[2]);
+                    restored.readState(ByteBuffer.wrap(saveState(game)));
+                    checkSameGame(game, restored, where);
+                    for (int step = 0; step < LOCKSTEP_STEPS && game.isRunning(); step++) {
+                        int input = random.nextInt(GameInput.values().length + 2);
+                        if (input < GameInput.values().length) {
+                            GameInput gameInput = GameInput.values()[input];
+                            check(game.apply(gameInput) == restored.apply(gameInput), "input " + where);
+                        } else {
+                            check(game.tick() == restored.tick(), "tick " + where);
+                        }
+                        check(Arrays.equals(saveState(game), saveState(restored)),
+                                "lockstep step " + step + " " + where);
+                        checks++;
+                    }
+                }
+            }
+        }
+        report("save and restore", start);
+    }
+
+    /**
+     * saveState(Game game)
+     * @param game - Game to save
+     * @return - Returns the saved record, checked to fill exactly getStateSize() bytes
+     */
+    private static byte[] saveState(Game game) {
+        ByteBuffer state = ByteBuffer.allocate(game.getStateSize());
+        game.writeState(state);
+        check(!state.hasRemaining(), "state size");
+        return state.array();
+    }
+
+    /**
+     * playRandomInput(Game game, Random random)
+     * Applies a random input, gravity step or hard drop to a running game
+     * @param game - Game to play
+     * @param random - Source of the input
+     */
+    private static void playRandomInput(Game game, Random random) {
+        int input = random.nextInt(7);
+        if (input < 4) {
+            game.apply(GameInput.values()[input]);
+        } else if (input < 6) {
+            game.step();
+        } else {
+            game.hardDrop();
+        }
+    }
+
+    /**
+     * checkSameGame(Game game, Game other, String where)
+     * Compares the values, blocks and board cells of two games
+     * @param game - Expected game
+     * @param other - Game to compare
+     * @param where - Description of the check for the error message
+     */
+    private static void checkSameGame(Game game, Game other, String where) {
+        check(game.getScore() == other.getScore() && game.getLevel() == other.getLevel()
+                && game.getTotalLines() == other.getTotalLines() && game.getFallDelay() == other.getFallDelay()
+                && game.getLastClearedRows() == other.getLastClearedRows()
+                && game.isRunning() == other.isRunning() && game.isFastFall() == other.isFastFall(), "values " + where);
+        check(game.getCurrentBlockType() == other.getCurrentBlockType()
+                && game.getCurrentBlockRotation() == other.getCurrentBlockRotation()
+                && game.getCurrentBlockX() == other.getCurrentBlockX()
+                && game.getCurrentBlockY() == other.getCurrentBlockY()
+                && game.getCurrentHoldBlock() == other.getCurrentHoldBlock(), "blocks " + where);
+        check(Arrays.equals(game.getBlockQueue(), other.getBlockQueue()), "queue " + where);
+        for (int y = 0; y < game.getBoard().getHeight(); y++) {
+            for (int x = 0; x < game.getBoard().getWidth(); x++) {
+                if (game.getBoard().getCellType(x, y) != other.getBoard().getCellType(x, y)) {
+                    fail("cell " + x + "," + y + " " + where);
+                }
+            }
+        }
+        checks++;
+    }
+
+    private static void check(boolean condition, String description) {
+        if (!condition) {
+            fail(description);
+        }
+    }
+
+    private static void fail(String description) {
+        throw new IllegalStateException("Check failed: " + description);
+    }
+
+    private static void report(String name, long start) {
+        System.out.println(name + ": " + (checks - start) + " checks passed");
+    }
+}
@@ -0,0 +1,118 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Class: Assets
+ * Author: Yannis Seimenis
+ * Description: Loads every image and the font once at startup and serves them from memory. Resources are
+ * read from the classpath (falling back to the resources folder), decoded in parallel and converted to
+ * images compatible with the screen so they can be drawn without conversion.
+ */
+public class Assets {
+    /**
+     * Global variables
+     */
+    public static final String BACKGROUND = "background.png";
+    public static final String BACKGROUND_2 = "background-2.png";
+    public static final String FONT = "pixeboy-font.ttf";
+    private static final String[] BLOCK_IMAGES = {
+            "IBlock.png", "JBlock.png", "LBlock.png", "OBlock.png", "SBlock.png", "TBlock.png", "ZBlock.png"
+    };
+    private static final String RESOURCES_FOLDER = "resources";
+
+    private final Map<String, ImageIcon> icons = new ConcurrentHashMap<>();
+    private Font font;
+
+    /**
+     * Assets()
+     * Assets constructor, use load() to create the cache
+     */
+    private Assets() {
+    }
+
+    /**
+     * load()
+     * Loads and decodes all images in parallel and loads the font
+     * @return - Returns the asset cache
+     */
+    public static Assets load() {
+        Assets assets = new Assets();
+        Stream.concat(Stream.of(BLOCK_IMAGES), Stream.of(BACKGROUND, BACKGROUND_2))
+                .parallel()
+                .forEach(name -> assets.icons.put(name, new ImageIcon(readImage(name))));
+        try (InputStream inputStream = open(FONT)) {
+            assets.font = Font.createFont(Font.TRUETYPE_FONT, inputStream);
+        } catch (IOException | FontFormatException e) {
+            e.printStackTrace();
+            assets.font = new Font(Font.MONOSPACED, Font.PLAIN, 1);
+        }
+        return assets;
+    }
+
+    /**
+     * readImage(String name)
+     * Decodes an image and converts it to the format of the screen
+     * @param name - File name of the image
+     * @return - Returns the decoded image
+     */
+    private static BufferedImage readImage(String name) {
+        BufferedImage image;
+        try (InputStream inputStream = open(name)) {
+            image = ImageIO.read(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + name, e);
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            return image;
+        }
+        GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        BufferedImage compatible = configuration.createCompatibleImage(image.getWidth(), image.getHeight(),
+                image.getTransparency());
+        Graphics2D graphics = compatible.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return compatible;
+    }
+
+    /**
+     * open(String name)
+     * Opens a resource from the classpath, or from the resources folder if it is not on the classpath
+     * @param name - File name of the resource
+     * @return - Returns a stream of the resource
+     * @throws IOException - If the resource can not be found
+     */
+    private static InputStream open(String name) throws IOException {
+        InputStream inputStream = Assets.class.getResourceAsStream("/" + name);
+        if (inputStream != null) {
+            return inputStream;
+        }
+        return new FileInputStream(new File(RESOURCES_FOLDER, name));
+    }
+
+    //region Getters
+
+    public ImageIcon getIcon(String name) {
+        return icons.get(name);
+    }
+
+    public ImageIcon getBlockIcon(int blockType) {
+        return icons.get(BLOCK_IMAGES[blockType]);
+    }
+
+    public Font getFont() {
+        return font;
+    }
+
+    //endregion
+}
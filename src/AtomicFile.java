@@ -0,0 +1,43 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class: AtomicFile
+ * Author: Yannis Seimenis
+ * Description: Replaces files so that a crash while writing never leaves a half written file. The new
+ * contents are written to a temporary file next to the target, forced to disk and renamed over it.
+ */
+public final class AtomicFile {
+    private AtomicFile() {
+    }
+
+    /**
+     * write(Path path, byte[] contents)
+     * Replaces the contents of a file atomically
+     * @param path - File to write
+     * @param contents - New contents of the file
+     * @throws IOException - If the file can not be written, the old file is left untouched
+     */
+    public static void write(Path path, byte[] contents) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(contents);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class: AutoPlayer
+ * Author: Yannis Seimenis
+ * Description: Placement policy that tries every reachable placement of the current block and plays the
+ * best one. A placement is reachable when the block can be moved down until it can be rotated, then moved
+ * sideways to its column and dropped. The boards that result are scored with a weighted sum of aggregate height, cleared
+ * lines, holes and bumpiness. Candidates are evaluated on preallocated bitmask rows, one reusable fork-join
+ * task and evaluator per rotation, so the rotations can be evaluated in parallel without allocating.
+ */
+public class AutoPlayer implements PlacementPolicy {
+    /**
+     * Global variables
+     */
+    public static final int HEIGHT_WEIGHT = 0;
+    public static final int LINES_WEIGHT = 1;
+    public static final int HOLES_WEIGHT = 2;
+    public static final int BUMPINESS_WEIGHT = 3;
+    public static final int WEIGHT_COUNT = 4;
+    public static final double[] DEFAULT_WEIGHTS = {-0.510066, 0.760666, -0.35663, -0.184483};
+
+    private static final int MAX_ROTATIONS = 4;
+
+    private final double[] weights;
+    private final boolean parallel;
+    private final int[] boardRows = new int[Board.HEIGHT];
+    private final RotationCandidate[] candidates = new RotationCandidate[MAX_ROTATIONS];
+
+    /**
+     * AutoPlayer()
+     * AutoPlayer constructor, uses the default weights and evaluates on the calling thread
+     */
+    public AutoPlayer() {
+        this(DEFAULT_WEIGHTS, false);
+    }
+
+    /**
+     * AutoPlayer(double[] newWeights, boolean newParallel)
+     * AutoPlayer constructor
+     * @param newWeights - Heuristic weights indexed by HEIGHT_WEIGHT, LINES_WEIGHT, HOLES_WEIGHT and BUMPINESS_WEIGHT
+     * @param newParallel - True to evaluate the rotations in parallel on the common fork-join pool
+     */
+    public AutoPlayer(double[] newWeights, boolean newParallel) {
+        if (newWeights.length != WEIGHT_COUNT) {
+            throw new IllegalArgumentException("Expected " + WEIGHT_COUNT + " weights");
+        }
+        weights = newWeights.clone();
+        parallel = newParallel;
+        for (int i = 0; i < MAX_ROTATIONS; i++) {
+            candidates[i] = new RotationCandidate(new Evaluator(weights), boardRows);
+        }
+    }
+
+    @Override
+    public void placeBlock(Game game) {
+        int best = findPlacement(game);
+        if (best == -1) {
+            return;
+        }
+        moveBlock(game, candidates[best].drops, best, candidates[best].bestX);
+    }
+
+    /**
+     * moveBlock(Game game, int drops, int turns, int x)
+     * Moves the current block of a game to a placement found by forEachPlacement
+     * @param game - Game whose current block is moved
+     * @param drops - Number of rows to move down before rotating
+     * @param turns - Number of times to rotate
+     * @param x - Column to move to
+     */
+    public static void moveBlock(Game game, int drops, int turns, int x) {
+        for (int i = 0; i < drops; i++) {
+            game.apply(GameInput.SOFT_DROP);
+        }
+        for (int i = 0; i < turns; i++) {
+            game.apply(GameInput.ROTATE);
+        }
+        while (game.getCurrentBlockX() != x) {
+            game.apply(x < game.getCurrentBlockX() ? GameInput.MOVE_LEFT : GameInput.MOVE_RIGHT);
+        }
+    }
+
+    /**
+     * findPlacement(Game game)
+     * Evaluates every reachable placement of the current block without changing the game
+     * @param game - Game whose current block is placed
+     * @return - Returns the number of rotations of the best placement, -1 if the block can not move
+     * @throws IllegalArgumentException - If the game is not played on a standard board
+     */
+    public int findPlacement(Game game) {
+        if (!game.getBoard().isStandard()) {
+            throw new IllegalArgumentException("The auto player only plays on a standard board");
+        }
+        int blockType = game.getCurrentBlockType();
+        int rotation = game.getCurrentBlockRotation();
+        int rotations = BlockShapes.getRotationCount(blockType);
+        int x = game.getCurrentBlockX();
+        int y = game.getCurrentBlockY();
+
+        for (int i = 0; i < Board.HEIGHT; i++) {
+            boardRows[i] = game.getBoard().getRow(i);
+        }
+        for (int i = 0; i < rotations; i++) {
+            candidates[i].prepare(blockType, rotation, i, x, y);
+        }
+        if (parallel) {
+            //The same tasks are forked for every block, the first rotation is searched on the calling thread
+            for (int i = 1; i < rotations; i++) {
+                candidates[i].reinitialize();
+                candidates[i].fork();
+            }
+            candidates[0].search();
+            for (int i = 1; i < rotations; i++) {
+                candidates[i].join();
+            }
+        } else {
+            for (int i = 0; i < rotations; i++) {
+                candidates[i].search();
+            }
+        }
+
+        int best = -1;
+        for (int i = 0; i < rotations; i++) {
+            if (candidates[i].bestX != Integer.MIN_VALUE
+                    && (best == -1 || candidates[i].bestScore > candidates[best].bestScore)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * PlacementVisitor
+     * Receives every placement found by forEachPlacement
+     */
+    public interface PlacementVisitor {
+        void visit(int rotation, int x, int y);
+    }
+
+    /**
+     * forEachPlacement(int[] rows, int blockType, int rotation, int turns, int x, int y, PlacementVisitor visitor)
+     * Visits every reachable placement of a block after rotating it a number of times. The block is moved
+     * down until every rotation on the way fits, as blocks near the top can not rotate at spawn, then it is
+     * walked left and right from its column and dropped in every column it reaches
+     * @param rows - Rows of the board as bitmasks
+     * @param blockType - Type of the block
+     * @param rotation - Current rotation of the block
+     * @param turns - Number of times the block is rotated
+     * @param x - Current x coordinate of the block
+     * @param y - Current y coordinate of the block
+     * @param visitor - Visitor called with the rotation and lock position of every placement
+     * @return - Returns the number of rows moved down before rotating, -1 if the block can not be rotated
+     */
+    public static int forEachPlacement(int[] rows, int blockType, int rotation, int turns, int x, int y,
+                                       PlacementVisitor visitor) {
+        int drops = rotationDrops(rows, blockType, rotation, turns, x, y);
+        if (drops == -1) {
+            return -1;
+        }
+        int rotateY = y + drops;
+        int newRotation = (rotation + turns) % BlockShapes.getRotationCount(blockType);
+        for (int dir = -1; dir <= 1; dir += 2) {
+            for (int newX = dir == -1 ? x : x + 1; Board.fits(rows, blockType, newRotation, newX, rotateY); newX += dir) {
+                int dropY = rotateY;
+                while (Board.fits(rows, blockType, newRotation, newX, dropY + 1)) {
+                    dropY++;
+                }
+                visitor.visit(newRotation, newX, dropY);
+            }
+        }
+        return drops;
+    }
+
+    /**
+     * rotationDrops(int[] rows, int blockType, int rotation, int turns, int x, int y)
+     * @param rows - Rows of the board as bitmasks
+     * @param blockType - Type of the block
+     * @param rotation - Current rotation of the block
+     * @param turns - Number of times the block is rotated
+     * @param x - Current x coordinate of the block
+     * @param y - Current y coordinate of the block
+     * @return - Returns the number of rows the block must move down before every rotation on the way
+     * fits, -1 if it hits something first
+     */
+    public static int rotationDrops(int[] rows, int blockType, int rotation, int turns, int x, int y) {
+        int rotations = BlockShapes.getRotationCount(blockType);
+        int rotateY = y;
+        while (!canRotate(rows, blockType, rotation, rotations, turns, x, rotateY)) {
+            rotateY++;
+            if (!Board.fits(rows, blockType, rotation, x, rotateY)) {
+                return -1;
+            }
+        }
+        return rotateY - y;
+    }
+
+    /**
+     * canRotate(int[] rows, int blockType, int rotation, int rotations, int turns, int x, int y)
+     * @param rows - Rows of the board as bitmasks
+     * @param blockType - Type of the block
+     * @param rotation - Current rotation of the block
+     * @param rotations - Number of rotations of the block type
+     * @param turns - Number of times the block is rotated
+     * @param x - X coordinate of the block
+     * @param y - Y coordinate of the block
+     * @return - Returns true if every rotation on the way fits in place
+     */
+    private static boolean canRotate(int[] rows, int blockType, int rotation, int rotations, int turns, int x, int y) {
+        for (int i = 1; i <= turns; i++) {
+            if (!Board.fits(rows, blockType, (rotation + i) % rotations, x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Class: RotationCandidate
+     * Description: Best column found for one number of rotations, each has its own evaluator so the
+     * rotations can be searched in parallel. The task is reinitialized and forked again for every block
+     */
+    private static class RotationCandidate extends RecursiveAction implements PlacementVisitor {
+        private static final long serialVersionUID = 1L;
+
+        private final Evaluator evaluator;
+        private final int[] boardRows;
+        private int blockType;
+        private int startRotation;
+        private int turns;
+        private int startX;
+        private int startY;
+        private int drops;
+        private int bestX;
+        private double bestScore;
+
+        private RotationCandidate(Evaluator newEvaluator, int[] newBoardRows) {
+            evaluator = newEvaluator;
+            boardRows = newBoardRows;
+        }
+
+        private void prepare(int newBlockType, int newRotation, int newTurns, int newX, int newY) {
+            blockType = newBlockType;
+            startRotation = newRotation;
+            turns = newTurns;
+            startX = newX;
+            startY = newY;
+        }
+
+        private void search() {
+            bestX = Integer.MIN_VALUE;
+            drops = forEachPlacement(boardRows, blockType, startRotation, turns, startX, startY, this);
+        }
+
+        @Override
+        protected void compute() {
+            search();
+        }
+
+        @Override
+        public void visit(int rotation, int x, int y) {
+            double score = evaluator.evaluate(boardRows, blockType, rotation, x, y);
+            if (bestX == Integer.MIN_VALUE || score > bestScore) {
+                bestScore = score;
+                bestX = x;
+            }
+        }
+    }
+
+    /**
+     * Class: Evaluator
+     * Description: Scores the board that results from locking a block, reusing its own scratch rows
+     */
+    public static class Evaluator {
+        private final double[] weights;
+        private final int[] rows = new int[Board.HEIGHT];
+        private final int[] heights = new int[Board.WIDTH];
+        private int lines;
+        private int aggregateHeight;
+        private int holes;
+        private int bumpiness;
+
+        /**
+         * Evaluator(double[] newWeights)
+         * Evaluator constructor
+         * @param newWeights - Heuristic weights, not copied
+         */
+        public Evaluator(double[] newWeights) {
+            weights = newWeights;
+        }
+
+        /**
+         * evaluate(int[] boardRows, int blockType, int rotation, int x, int y)
+         * Locks a block into a copy of the rows, removes full rows and scores the result
+         * @param boardRows - Rows of the board as bitmasks, only read
+         * @param blockType - Type of the block
+         * @param rotation - Rotation of the block
+         * @param x - X coordinate the block is locked at
+         * @param y - Y coordinate the block is locked at
+         * @return - Returns the score, negative infinity if locking the block ends the game
+         */
+        public double evaluate(int[] boardRows, int blockType, int rotation, int x, int y) {
+            int minY = BlockShapes.getMinY(blockType, rotation);
+            if (y + minY == 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            System.arraycopy(boardRows, 0, rows, 0, Board.HEIGHT);
+            for (int i = minY; i <= BlockShapes.getMaxY(blockType, rotation); i++) {
+                int mask = BlockShapes.getRowMask(blockType, rotation, i);
+                rows[y + i] |= x >= 0 ? mask << x : mask >>> -x;
+            }
+            return evaluate(rows);
+        }
+
+        /**
+         * evaluate(int[] boardRows)
+         * Removes the full rows of a board in place and scores the result
+         * @param boardRows - Rows of the board as bitmasks, compacted in place
+         * @return - Returns the score
+         */
+        public double evaluate(int[] boardRows) {
+            //Compact full rows away from the bottom up
+            lines = 0;
+            int write = Board.HEIGHT - 1;
+            for (int read = Board.HEIGHT - 1; read >= 0; read--) {
+                if (boardRows[read] == Board.FULL_ROW) {
+                    lines++;
+                } else {
+                    boardRows[write--] = boardRows[read];
+                }
+            }
+            while (write >= 0) {
+                boardRows[write--] = 0;
+            }
+
+            //Walk down from the top, a column's height is set by its first filled cell and every empty
+            //cell below that is a hole
+            aggregateHeight = 0;
+            holes = 0;
+            bumpiness = 0;
+            Arrays.fill(heights, 0);
+            int seen = 0;
+            for (int i = 0; i < Board.HEIGHT; i++) {
+                int row = boardRows[i];
+                int newColumns = row & ~seen;
+                while (newColumns != 0) {
+                    heights[Integer.numberOfTrailingZeros(newColumns)] = Board.HEIGHT - i;
+                    newColumns &= newColumns - 1;
+                }
+                holes += Integer.bitCount(~row & seen & Board.FULL_ROW);
+                seen |= row;
+            }
+            for (int column = 0; column < Board.WIDTH; column++) {
+                aggregateHeight += heights[column];
+                if (column > 0) {
+                    bumpiness += Math.abs(heights[column] - heights[column - 1]);
+                }
+            }
+            return weights[HEIGHT_WEIGHT] * aggregateHeight + weights[LINES_WEIGHT] * lines
+                    + weights[HOLES_WEIGHT] * holes + weights[BUMPINESS_WEIGHT] * bumpiness;
+        }
+
+        /**
+         * getRows()
+         * @return - Returns the scratch rows holding the board of the last evaluate(boardRows, ...) call
+         */
+        public int[] getRows() {
+            return rows;
+        }
+
+        public int getLines() {
+            return lines;
+        }
+
+        public int getAggregateHeight() {
+            return aggregateHeight;
+        }
+
+        public int getHoles() {
+            return holes;
+        }
+
+        public int getBumpiness() {
+            return bumpiness;
+        }
+    }
+}
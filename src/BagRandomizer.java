@@ -0,0 +1,69 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Class: BagRandomizer
+ * Author: Yannis Seimenis
+ * Description: 7-bag randomizer, deals all seven block types in a shuffled order before refilling the bag.
+ */
+public class BagRandomizer implements Randomizer {
+    /**
+     * Global variables
+     */
+    private final SeededRandom random;
+    private final int[] bag;
+    private int bagIndex;
+
+    /**
+     * BagRandomizer(long seed)
+     * BagRandomizer constructor
+     * @param seed - Seed of the sequence
+     */
+    public BagRandomizer(long seed) {
+        random = new SeededRandom(seed);
+        bag = new int[BlockShapes.BLOCK_TYPES];
+        bagIndex = bag.length;
+    }
+
+    @Override
+    public int nextBlock() {
+        if (bagIndex == bag.length) {
+            refillBag();
+        }
+        return bag[bagIndex++];
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+        out.put((byte) bagIndex);
+        for (int block : bag) {
+            out.put((byte) block);
+        }
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        random.setState(in.getLong());
+        bagIndex = in.get();
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = in.get();
+        }
+    }
+
+    /**
+     * refillBag()
+     * Fills the bag with every block type and shuffles it (Fisher-Yates)
+     */
+    private void refillBag() {
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+        for (int i = bag.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = bag[i];
+            bag[i] = bag[j];
+            bag[j] = temp;
+        }
+        bagIndex = 0;
+    }
+}
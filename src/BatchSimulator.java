@@ -0,0 +1,211 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Class: BatchSimulator
+ * Author: Yannis Seimenis
+ * Description: Runs many independently seeded headless games in parallel on a fork-join pool and
+ * collects statistics about score, lines and levels reached. Used to validate scoring and level pacing.
+ * Usage: java BatchSimulator [games] [seed] [maxPieces] [threads] [random|auto|beam]
+ */
+public class BatchSimulator {
+    /**
+     * Global variables
+     */
+    private final LongFunction<PlacementPolicy> policyFactory;
+    private final int maxPieces;
+
+    /**
+     * BatchSimulator(LongFunction<PlacementPolicy> newPolicyFactory, int newMaxPieces)
+     * BatchSimulator constructor
+     * @param newPolicyFactory - Creates the placement policy for a game from the game seed
+     * @param newMaxPieces - Maximum number of pieces played before a game is stopped
+     */
+    public BatchSimulator(LongFunction<PlacementPolicy> newPolicyFactory, int newMaxPieces) {
+        policyFactory = newPolicyFactory;
+        maxPieces = newMaxPieces;
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int maxPieces = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String policy = args.length > 4 ? args[4] : "random";
+
+        LongFunction<PlacementPolicy> policyFactory = switch (policy) {
+            case "random" -> RandomPlacementPolicy::new;
+            case "auto" -> gameSeed -> new AutoPlayer();
+            case "beam" -> gameSeed -> new BeamSearch();
+            default -> throw new IllegalArgumentException("Unknown policy " + policy);
+        };
+        BatchSimulator simulator = new BatchSimulator(policyFactory, maxPieces);
+        System.out.println(simulator.run(games, seed, threads));
+    }
+
+    /**
+     * run(int games, long seed, int threads)
+     * Runs a batch of games, every game gets its own seed derived from the batch seed
+     * @param games - Number of games to run
+     * @param seed - Seed of the batch
+     * @param threads - Number of worker threads
+     * @return - Returns the statistics of the batch
+     */
+    public Result run(int games, long seed, int threads) {
+        int[] scores = new int[games];
+        int[] lines = new int[games];
+        int[] levels = new int[games];
+        int[] pieces = new int[games];
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> IntStream.range(0, games).parallel().forEach(i -> {
+                long gameSeed = gameSeed(seed, i);
+                Game game = new Game(gameSeed);
+                pieces[i] = simulateGame(game, policyFactory.apply(gameSeed), maxPieces);
+                scores[i] = game.getScore();
+                lines[i] = game.getTotalLines();
+                levels[i] = game.getLevel();
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        return new Result(scores, lines, levels, pieces, System.nanoTime() - start, threads);
+    }
+
+    /**
+     * simulateGame(Game game, PlacementPolicy policy, int maxPieces)
+     * Plays a game until it is over or the maximum number of pieces has been placed
+     * @param game - Game to play
+     * @param policy - Policy placing every block
+     * @param maxPieces - Maximum number of pieces to place
+     * @return - Returns the number of pieces placed
+     */
+    public static int simulateGame(Game game, PlacementPolicy policy, int maxPieces) {
+        game.startGame();
+        int pieces = 0;
+        while (game.isRunning() && pieces < maxPieces) {
+            policy.placeBlock(game);
+            game.hardDrop();
+            pieces++;
+        }
+        return pieces;
+    }
+
+    /**
+     * gameSeed(long seed, int index)
+     * Derives the seed of a single game from the batch seed (SplitMix64 finaliser)
+     * @param seed - Seed of the batch
+     * @param index - Index of the game in the batch
+     * @return - Returns the seed of the game
+     */
+    public static long gameSeed(long seed, int index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Class: Result
+     * Description: Aggregate statistics of a batch of simulated games
+     */
+    public static class Result {
+        private final int[] scores;
+        private final int[] lines;
+        private final int[] levels;
+        private final long totalPieces;
+        private final long elapsedNanos;
+        private final int threads;
+
+        private Result(int[] newScores, int[] newLines, int[] newLevels, int[] pieces, long newElapsedNanos, int newThreads) {
+            scores = newScores.clone();
+            lines = newLines.clone();
+            levels = newLevels;
+            Arrays.sort(scores);
+            Arrays.sort(lines);
+            totalPieces = Arrays.stream(pieces).asLongStream().sum();
+            elapsedNanos = newElapsedNanos;
+            threads = newThreads;
+        }
+
+        /**
+         * percentile(int[] sorted, double percentile)
+         * @param sorted - Sorted values
+         * @param percentile - Percentile between 0 and 100
+         * @return - Returns the value at the percentile
+         */
+        private static int percentile(int[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+
+        /**
+         * levelHistogram()
+         * @return - Returns the number of games that ended on each level
+         */
+        public int[] levelHistogram() {
+            int maxLevel = Arrays.stream(levels).max().orElse(0);
+            int[] histogram = new int[maxLevel + 1];
+            for (int level : levels) {
+                histogram[level]++;
+            }
+            return histogram;
+        }
+
+        public int getGames() {
+            return scores.length;
+        }
+
+        public double getMeanScore() {
+            return Arrays.stream(scores).average().orElse(0);
+        }
+
+        public int getScorePercentile(double percentile) {
+            return percentile(scores, percentile);
+        }
+
+        public double getMeanLines() {
+            return Arrays.stream(lines).average().orElse(0);
+        }
+
+        public int getLinesPercentile(double percentile) {
+            return percentile(lines, percentile);
+        }
+
+        public long getTotalPieces() {
+            return totalPieces;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.ROOT, "Games: %d on %d threads in %.2f s (%.0f games/s, %.0f pieces/s)%n",
+                    getGames(), threads, seconds, getGames() / seconds, totalPieces / seconds));
+            builder.append(String.format(Locale.ROOT, "Score: mean %.1f, min %d, p50 %d, p90 %d, p99 %d, max %d%n",
+                    getMeanScore(), getScorePercentile(0), getScorePercentile(50), getScorePercentile(90),
+                    getScorePercentile(99), getScorePercentile(100)));
+            builder.append(String.format(Locale.ROOT, "Lines: mean %.1f, min %d, p50 %d, p90 %d, p99 %d, max %d%n",
+                    getMeanLines(), getLinesPercentile(0), getLinesPercentile(50), getLinesPercentile(90),
+                    getLinesPercentile(99), getLinesPercentile(100)));
+            builder.append("Levels reached:");
+            int[] histogram = levelHistogram();
+            for (int i = 0; i < histogram.length; i++) {
+                builder.append(String.format(Locale.ROOT, "%n  Level %d: %d", i, histogram[i]));
+            }
+            return builder.toString();
+        }
+    }
+}
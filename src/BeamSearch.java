@@ -0,0 +1,374 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Class: BeamSearch
+ * Author: Yannis Seimenis
+ * Description: Placement policy that looks ahead over the preview queue and the hold slot. Every depth
+ * places one more known block, either the current one or the one swapped in by holding, in every reachable
+ * placement. Only the best states by heuristic score are kept for the next depth. States reached by a
+ * different order of moves are merged through a Zobrist-hashed transposition table. Beam nodes are
+ * expanded on a work-stealing pool and the search stops at the last full depth once the time budget is used.
+ * Usage: java BeamSearch [seed] [maxPieces] [beamWidth] [depth] [budgetMillis] [threads]
+ */
+public class BeamSearch implements PlacementPolicy {
+    /**
+     * Global variables
+     */
+    public static final int DEFAULT_BEAM_WIDTH = 32;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+    public static final int DEFAULT_TABLE_SIZE = 1 << 16;
+
+    private static final int MAX_QUEUE = 64;
+    private static final long[][] ROW_KEYS = new long[Board.HEIGHT][1 << Board.WIDTH];
+    private static final long[] CURRENT_KEYS = new long[BlockShapes.BLOCK_TYPES + 1];
+    private static final long[] HOLD_KEYS = new long[BlockShapes.BLOCK_TYPES + 1];
+    private static final long[] NEXT_KEYS = new long[MAX_QUEUE + 2];
+
+    static {
+        //One random key per cell, tabulated per row pattern so a board hashes in one lookup per row
+        SeededRandom random = new SeededRandom(0x2545F4914F6CDD1DL);
+        for (int y = 0; y < Board.HEIGHT; y++) {
+            long[] cellKeys = new long[Board.WIDTH];
+            for (int x = 0; x < Board.WIDTH; x++) {
+                cellKeys[x] = random.nextLong();
+            }
+            for (int row = 1; row < 1 << Board.WIDTH; row++) {
+                int lowest = Integer.numberOfTrailingZeros(row);
+                ROW_KEYS[y][row] = ROW_KEYS[y][row & (row - 1)] ^ cellKeys[lowest];
+            }
+        }
+        for (int i = 0; i < CURRENT_KEYS.length; i++) {
+            CURRENT_KEYS[i] = random.nextLong();
+            HOLD_KEYS[i] = random.nextLong();
+        }
+        for (int i = 0; i < NEXT_KEYS.length; i++) {
+            NEXT_KEYS[i] = random.nextLong();
+        }
+    }
+
+    private final double[] weights;
+    private final int beamWidth;
+    private final int maxDepth;
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<AutoPlayer.Evaluator> evaluators;
+    private final TranspositionTable table = new TranspositionTable(DEFAULT_TABLE_SIZE);
+
+    private int[] queue;
+    private long deadline;
+    private volatile boolean timedOut;
+
+    private long searches = 0;
+    private long nodes = 0;
+    private long depths = 0;
+    private long timeouts = 0;
+    private long searchNanos = 0;
+
+    /**
+     * BeamSearch()
+     * BeamSearch constructor, uses the default settings and searches on the calling thread
+     */
+    public BeamSearch() {
+        this(AutoPlayer.DEFAULT_WEIGHTS, DEFAULT_BEAM_WIDTH, DEFAULT_DEPTH, DEFAULT_BUDGET_MILLIS, null);
+    }
+
+    /**
+     * BeamSearch(double[] newWeights, int newBeamWidth, int newMaxDepth, long budgetMillis, ForkJoinPool newPool)
+     * BeamSearch constructor
+     * @param newWeights - Heuristic weights, see AutoPlayer
+     * @param newBeamWidth - Number of states kept at every depth
+     * @param newMaxDepth - Maximum number of blocks placed ahead, limited by the known blocks
+     * @param budgetMillis - Time allowed for one move
+     * @param newPool - Pool to expand nodes on, null to search on the calling thread
+     */
+    public BeamSearch(double[] newWeights, int newBeamWidth, int newMaxDepth, long budgetMillis, ForkJoinPool newPool) {
+        weights = newWeights.clone();
+        beamWidth = newBeamWidth;
+        maxDepth = newMaxDepth;
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        pool = newPool;
+        evaluators = ThreadLocal.withInitial(() -> new AutoPlayer.Evaluator(weights));
+    }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 0;
+        int maxPieces = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int beamWidth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BEAM_WIDTH;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+        long budgetMillis = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_BUDGET_MILLIS;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            BeamSearch search = new BeamSearch(AutoPlayer.DEFAULT_WEIGHTS, beamWidth, depth, budgetMillis, pool);
+            Game game = new Game(seed);
+            int pieces = BatchSimulator.simulateGame(game, search, maxPieces);
+            System.out.printf(Locale.ROOT, "Pieces: %d, score: %d, lines: %d, level: %d%n",
+                    pieces, game.getScore(), game.getTotalLines(), game.getLevel());
+            System.out.println(search.getStats());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public void placeBlock(Game game) {
+        if (!game.getBoard().isStandard()) {
+            throw new IllegalArgumentException("The beam search only plays on a standard board");
+        }
+        long start = System.nanoTime();
+        deadline = start + budgetNanos;
+        timedOut = false;
+        queue = game.getBlockQueue();
+
+        Node root = new Node();
+        Board board = game.getBoard();
+        for (int i = 0; i < Board.HEIGHT; i++) {
+            root.rows[i] = board.getRow(i);
+        }
+        root.current = game.getCurrentBlockType();
+        root.hold = game.getCurrentHoldBlock();
+        root.next = 0;
+        root.root = true;
+        root.canHold = !game.isHeldThisTurn();
+        root.startRotation = game.getCurrentBlockRotation();
+        root.startX = game.getCurrentBlockX();
+        root.startY = game.getCurrentBlockY();
+
+        List<Node> beam = List.of(root);
+        Node best = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            List<Node> children = expand(beam);
+            if (children.isEmpty() || (timedOut && best != null)) {
+                break;
+            }
+            beam = children;
+            best = children.get(0);
+            depths++;
+        }
+        if (timedOut) {
+            timeouts++;
+        }
+        searches++;
+        searchNanos += System.nanoTime() - start;
+
+        if (best != null) {
+            if (best.moveHold) {
+                game.apply(GameInput.HOLD);
+            }
+            AutoPlayer.moveBlock(game, best.moveDrops, best.moveTurns, best.moveX);
+        }
+    }
+
+    /**
+     * expand(List<Node> beam)
+     * Expands every node of the beam and keeps the best distinct children
+     * @param beam - Nodes of the current depth
+     * @return - Returns the nodes of the next depth, best first
+     */
+    private List<Node> expand(List<Node> beam) {
+        List<List<Node>> expanded;
+        if (pool != null) {
+            expanded = pool.submit(() -> beam.parallelStream().map(this::expandNode)
+                    .collect(Collectors.toList())).join();
+        } else {
+            expanded = new ArrayList<>(beam.size());
+            for (Node node : beam) {
+                expanded.add(expandNode(node));
+            }
+        }
+
+        //Merge states reached by different orders, keeping the better path to each
+        table.nextGeneration();
+        ArrayList<Node> children = new ArrayList<>();
+        for (List<Node> nodeChildren : expanded) {
+            nodes += nodeChildren.size();
+            for (Node child : nodeChildren) {
+                int index = table.putIfAbsent(child.key(), children.size());
+                if (index == TranspositionTable.NOT_FOUND) {
+                    children.add(child);
+                } else if (child.value > children.get(index).value) {
+                    children.set(index, child);
+                }
+            }
+        }
+        children.sort((a, b) -> Double.compare(b.value, a.value));
+        return children.size() > beamWidth ? new ArrayList<>(children.subList(0, beamWidth)) : children;
+    }
+
+    /**
+     * expandNode(Node node)
+     * Places the current block, or the block swapped in by holding, in every reachable placement
+     * @param node - Node to expand
+     * @return - Returns the children of the node
+     */
+    private List<Node> expandNode(Node node) {
+        ArrayList<Node> children = new ArrayList<>();
+        if (System.nanoTime() > deadline) {
+            timedOut = true;
+            return children;
+        }
+        if (node.current != -1) {
+            addPlacements(node, children, node.current, false, node.hold, node.next,
+                    node.root ? node.startRotation : 0, node.root ? node.startX : -1, node.root ? node.startY : -1);
+        }
+        if (node.canHold && node.hold != node.current) {
+            if (node.hold == -1) {
+                //Holding into an empty slot takes the next block from the queue
+                int piece = pieceAt(node.next);
+                if (piece != -1) {
+                    addPlacements(node, children, piece, true, node.current, node.next + 1, 0, -1, -1);
+                }
+            } else {
+                addPlacements(node, children, node.hold, true, node.current, node.next, 0, -1, -1);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * addPlacements(Node node, List<Node> children, int piece, boolean hold, int newHold, int next, int rotation, int x, int y)
+     * Adds a child for every reachable placement of a block
+     * @param node - Parent node
+     * @param children - List the children are added to
+     * @param piece - Block type to place
+     * @param hold - True if the block was swapped in by holding
+     * @param newHold - Held block after the move
+     * @param next - Queue index of the block after this one
+     * @param rotation - Rotation the block starts in
+     * @param x - X coordinate the block starts at, -1 for the spawn position
+     * @param y - Y coordinate the block starts at, -1 for the spawn position
+     */
+    private void addPlacements(Node node, List<Node> children, int piece, boolean hold, int newHold, int next,
+                               int rotation, int x, int y) {
+        if (x == -1) {
+            x = BlockShapes.getSpawnX(piece);
+            y = BlockShapes.getSpawnY(piece);
+        }
+        if (!Board.fits(node.rows, piece, rotation, x, y)) {
+            return;
+        }
+        AutoPlayer.Evaluator evaluator = evaluators.get();
+        for (int turns = 0; turns < BlockShapes.getRotationCount(piece); turns++) {
+            int drops = AutoPlayer.rotationDrops(node.rows, piece, rotation, turns, x, y);
+            if (drops == -1) {
+                continue;
+            }
+            int moveTurns = turns;
+            AutoPlayer.forEachPlacement(node.rows, piece, rotation, turns, x, y, (newRotation, newX, newY) -> {
+                double score = evaluator.evaluate(node.rows, piece, newRotation, newX, newY);
+                if (score == Double.NEGATIVE_INFINITY) {
+                    return;
+                }
+                Node child = new Node();
+                System.arraycopy(evaluator.getRows(), 0, child.rows, 0, Board.HEIGHT);
+                child.current = pieceAt(next);
+                child.hold = newHold;
+                child.next = next + 1;
+                child.canHold = true;
+                child.lineReward = node.lineReward + weights[AutoPlayer.LINES_WEIGHT] * evaluator.getLines();
+                child.value = node.lineReward + score;
+                if (node.root) {
+                    child.moveHold = hold;
+                    child.moveDrops = drops;
+                    child.moveTurns = moveTurns;
+                    child.moveX = newX;
+                } else {
+                    child.copyMove(node);
+                }
+                children.add(child);
+            });
+        }
+    }
+
+    /**
+     * pieceAt(int index)
+     * @param index - Index in the preview queue
+     * @return - Returns the block type at the index, -1 if it is not known yet
+     */
+    private int pieceAt(int index) {
+        return index < queue.length ? queue[index] : -1;
+    }
+
+    /**
+     * getStats()
+     * @return - Returns the search counters as text
+     */
+    public String getStats() {
+        double seconds = searchNanos / 1e9;
+        return String.format(Locale.ROOT,
+                "Searches: %d, nodes: %d (%.0f nodes/s), mean depth: %.2f, timeouts: %d, mean search: %.3f ms%n"
+                        + "Transposition table: %d lookups, hit rate %.1f%%, %d evictions",
+                searches, nodes, nodes / Math.max(seconds, 1e-9), searches == 0 ? 0 : (double) depths / searches,
+                timeouts, searches == 0 ? 0 : searchNanos / 1e6 / searches,
+                table.getLookups(), table.getHitRate() * 100, table.getEvictions());
+    }
+
+    //region Getters
+
+    public long getSearches() {
+        return searches;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public double getNodesPerSecond() {
+        return searchNanos == 0 ? 0 : nodes * 1e9 / searchNanos;
+    }
+
+    public double getHitRate() {
+        return table.getHitRate();
+    }
+
+    //endregion
+
+    /**
+     * Class: Node
+     * Description: State of the search after some blocks were placed, with the first move that led to it
+     */
+    private static class Node {
+        private final int[] rows = new int[Board.HEIGHT];
+        private boolean root;
+        private int current;
+        private int hold;
+        private int next;
+        private boolean canHold;
+        private int startRotation;
+        private int startX;
+        private int startY;
+        private double lineReward;
+        private double value;
+
+        private boolean moveHold;
+        private int moveTurns;
+        private int moveX;
+        private int moveDrops;
+
+        private void copyMove(Node node) {
+            moveHold = node.moveHold;
+            moveTurns = node.moveTurns;
+            moveX = node.moveX;
+            moveDrops = node.moveDrops;
+        }
+
+        /**
+         * key()
+         * @return - Returns the Zobrist key of the board, the current and held block and the queue position
+         */
+        private long key() {
+            long key = CURRENT_KEYS[current + 1] ^ HOLD_KEYS[hold + 1] ^ NEXT_KEYS[Math.min(next, MAX_QUEUE + 1)];
+            for (int y = 0; y < Board.HEIGHT; y++) {
+                key ^= ROW_KEYS[y][rows[y]];
+            }
+            return key;
+        }
+    }
+}
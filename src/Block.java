@@ -11,77 +11,49 @@ public class Block {
      */
     private final int blockType;
     private int blockRotation;
-    private int[][] blockLocation;
-    private Color blockColor;
+    private int blockX;
+    private int blockY;
+    private final int[][] blockLocation;
 
     /**
      * Block(int newBlockType)
-     * Block class constructor, initialises new block type, location, color and rotation
+     * Block class constructor, initialises new block type, location and rotation
      * @param newBlockType - New block type represented as int
      */
     public Block(int newBlockType) {
         blockType = newBlockType;
         blockRotation = 0;
-        setNewBlockLocationAndColor(newBlockType);
+        blockX = BlockShapes.getSpawnX(newBlockType);
+        blockY = BlockShapes.getSpawnY(newBlockType);
+        blockLocation = new int[4][2];
+        updateBlockLocation();
     }
 
     /**
-     * setNewBlockLocationAndColor(int newBlockType)
-     * Sets a new blocks starting location and color
-     * @param newBlockType - New block type represented as an int
+     * Block(int newBlockType, int newBlockRotation, int newBlockX, int newBlockY)
+     * Block class constructor, creates a block at a given rotation and location
+     * @param newBlockType - New block type represented as int
+     * @param newBlockRotation - Rotation of the block
+     * @param newBlockX - X coordinate of the origin of the block
+     * @param newBlockY - Y coordinate of the origin of the block
      */
-    private void setNewBlockLocationAndColor(int newBlockType) {
+    public Block(int newBlockType, int newBlockRotation, int newBlockX, int newBlockY) {
+        blockType = newBlockType;
+        blockRotation = newBlockRotation;
+        blockX = newBlockX;
+        blockY = newBlockY;
         blockLocation = new int[4][2];
-        switch (newBlockType) {
-            case 0 -> {
-                blockLocation[0] = new int[]{3, 0};
-                blockLocation[1] = new int[]{4, 0};
-                blockLocation[2] = new int[]{5, 0};
-                blockLocation[3] = new int[]{6, 0};
-                blockColor = new Color(247, 202, 208);
-            }
-            case 1 -> {
-                blockLocation[0] = new int[]{3, 0};
-                blockLocation[1] = new int[]{3, 1};
-                blockLocation[2] = new int[]{4, 1};
-                blockLocation[3] = new int[]{5, 1};
-                blockColor = new Color(249, 190, 199);
-            }
-            case 2 -> {
-                blockLocation[0] = new int[]{6, 0};
-                blockLocation[1] = new int[]{4, 1};
-                blockLocation[2] = new int[]{5, 1};
-                blockLocation[3] = new int[]{6, 1};
-                blockColor = new Color(251, 177, 189);
-            }
-            case 3 -> {
-                blockLocation[0] = new int[]{4, 0};
-                blockLocation[1] = new int[]{5, 0};
-                blockLocation[2] = new int[]{4, 1};
-                blockLocation[3] = new int[]{5, 1};
-                blockColor = new Color(255, 153, 172);
-            }
-            case 4 -> {
-                blockLocation[0] = new int[]{5, 0};
-                blockLocation[1] = new int[]{6, 0};
-                blockLocation[2] = new int[]{4, 1};
-                blockLocation[3] = new int[]{5, 1};
-                blockColor = new Color(255, 133, 161);
-            }
-            case 5 -> {
-                blockLocation[0] = new int[]{4, 0};
-                blockLocation[1] = new int[]{3, 1};
-                blockLocation[2] = new int[]{4, 1};
-                blockLocation[3] = new int[]{5, 1};
-                blockColor = new Color(255, 112, 150);
-            }
-            case 6 -> {
-                blockLocation[0] = new int[]{4, 0};
-                blockLocation[1] = new int[]{5, 0};
-                blockLocation[2] = new int[]{5, 1};
-                blockLocation[3] = new int[]{6, 1};
-                blockColor = new Color(255, 92, 138);
-            }
+        updateBlockLocation();
+    }
+
+    /**
+     * updateBlockLocation()
+     * Refreshes the cell locations of the block from its origin and the shape table
+     */
+    private void updateBlockLocation() {
+        for (int i = 0; i < 4; i++) {
+            blockLocation[i][0] = blockX + BlockShapes.getCellX(blockType, blockRotation, i);
+            blockLocation[i][1] = blockY + BlockShapes.getCellY(blockType, blockRotation, i);
         }
     }
 
@@ -92,9 +64,17 @@ public class Block {
      * Moves the block location down
      */
     public void moveBlockDown() {
-        for (int i = 0; i < 4; i++) {
-            blockLocation[i][1]++;
-        }
+        moveBlockDown(1);
+    }
+
+    /**
+     * moveBlockDown(int rows)
+     * Moves the block location down by a number of rows
+     * @param rows - Number of rows to move down
+     */
+    public void moveBlockDown(int rows) {
+        blockY += rows;
+        updateBlockLocation();
     }
 
     /**
@@ -102,9 +82,8 @@ public class Block {
      * Moves the block location left
      */
     public void moveBlockLeft() {
-        for (int i = 0; i < 4; i++) {
-            blockLocation[i][0]--;
-        }
+        blockX--;
+        updateBlockLocation();
     }
 
     /**
@@ -112,34 +91,22 @@ public class Block {
      * Moves the blocks location right
      */
     public void moveBlockRight() {
-        for (int i = 0; i < 4; i++) {
-            blockLocation[i][0]++;
-        }
+        blockX++;
+        updateBlockLocation();
     }
 
     //endregion
 
     //region Setters
 
-    /**
-     * setNewLocation(int[][] newLocation)
-     * Sets a new location of the block (used to set new position after rotation)
-     * @param newLocation - New location as 2D array of int
-     */
-    public void setNewLocation(int[][] newLocation) {
-        for (int i = 0; i < 4; i++) {
-            blockLocation[i][0] = newLocation[i][0];
-            blockLocation[i][1] = newLocation[i][1];
-        }
-    }
-
     /**
      * setBlockRotation(int blockRotation)
-     * Sets the blocks rotation as an int
+     * Sets the blocks rotation as an int and updates its location from the shape table
      * @param blockRotation - New rotation represented as an int
      */
     public void setBlockRotation(int blockRotation) {
         this.blockRotation = blockRotation;
+        updateBlockLocation();
     }
 
     //endregion
@@ -162,6 +129,22 @@ public class Block {
         return blockRotation;
     }
 
+    /**
+     * getBlockX()
+     * @return - Returns the x coordinate of the block origin
+     */
+    public int getBlockX() {
+        return blockX;
+    }
+
+    /**
+     * getBlockY()
+     * @return - Returns the y coordinate of the block origin
+     */
+    public int getBlockY() {
+        return blockY;
+    }
+
     /**
      * getBlockLocation()
      * @return - Returns the blocks location as 2D array of ints
@@ -175,7 +158,7 @@ public class Block {
      * @return - Returns the blocks color as Color object
      */
     public Color getBlockColor() {
-        return blockColor;
+        return BlockShapes.getColor(blockType);
     }
 
     //endregion
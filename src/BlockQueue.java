@@ -0,0 +1,110 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Class: BlockQueue
+ * Author: Yannis Seimenis
+ * Description: Ring buffer of upcoming block types. Blocks are drawn from the randomizer lazily when they
+ * are first looked at, and taking a block only moves the head of the buffer.
+ */
+public class BlockQueue {
+    /**
+     * Global variables
+     */
+    public static final int MAX_SAVED_BLOCKS = 16;
+    public static final int STATE_SIZE = 1 + MAX_SAVED_BLOCKS;
+
+    private final Randomizer randomizer;
+    private final int previewSize;
+    private final int[] buffer;
+    private final int mask;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * BlockQueue(Randomizer newRandomizer, int newPreviewSize)
+     * BlockQueue constructor
+     * @param newRandomizer - Randomizer generating the block sequence
+     * @param newPreviewSize - Number of upcoming blocks that can be looked at, 1 to MAX_SAVED_BLOCKS
+     */
+    public BlockQueue(Randomizer newRandomizer, int newPreviewSize) {
+        //Saves and snapshot deltas hold at most MAX_SAVED_BLOCKS queued blocks
+        if (newPreviewSize < 1 || newPreviewSize > MAX_SAVED_BLOCKS) {
+            throw new IllegalArgumentException("Preview size must be between 1 and " + MAX_SAVED_BLOCKS);
+        }
+        randomizer = newRandomizer;
+        previewSize = newPreviewSize;
+        //Power of two capacity so the index wraps with a mask
+        buffer = new int[Integer.highestOneBit(newPreviewSize) << 1];
+        mask = buffer.length - 1;
+    }
+
+    /**
+     * peek(int index)
+     * Looks at an upcoming block without taking it, generating blocks up to the index if needed
+     * @param index - Position in the queue, 0 is the next block
+     * @return - Returns the block type represented as int
+     */
+    public int peek(int index) {
+        if (index < 0 || index >= previewSize) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside preview of " + previewSize);
+        }
+        while (size <= index) {
+            buffer[(head + size) & mask] = randomizer.nextBlock();
+            size++;
+        }
+        return buffer[(head + index) & mask];
+    }
+
+    /**
+     * poll()
+     * Takes the next block from the queue
+     * @return - Returns the block type represented as int
+     */
+    public int poll() {
+        int block = peek(0);
+        head = (head + 1) & mask;
+        size--;
+        return block;
+    }
+
+    /**
+     * writeState(ByteBuffer out)
+     * Writes the blocks already drawn from the randomizer, a count byte followed by MAX_SAVED_BLOCKS bytes.
+     * Blocks are only read from the buffer, so saving never draws from the randomizer
+     * @param out - Buffer to write to
+     */
+    public void writeState(ByteBuffer out) {
+        out.put((byte) size);
+        for (int i = 0; i < MAX_SAVED_BLOCKS; i++) {
+            out.put((byte) (i < size ? buffer[(head + i) & mask] : 0));
+        }
+    }
+
+    /**
+     * readState(ByteBuffer in)
+     * Replaces the drawn blocks with ones written by writeState
+     * @param in - Buffer to read from
+     */
+    public void readState(ByteBuffer in) {
+        int savedSize = in.get();
+        if (savedSize < 0 || savedSize > previewSize) {
+            throw new IllegalArgumentException("Saved queue of " + savedSize + " blocks does not fit a preview of " + previewSize);
+        }
+        head = 0;
+        size = savedSize;
+        for (int i = 0; i < MAX_SAVED_BLOCKS; i++) {
+            int block = in.get();
+            if (i < size) {
+                buffer[i] = block;
+            }
+        }
+    }
+
+    public int getPreviewSize() {
+        return previewSize;
+    }
+
+    public Randomizer getRandomizer() {
+        return randomizer;
+    }
+}
@@ -0,0 +1,178 @@
+import java.awt.*;
+
+/**
+ * Class: BlockShapes
+ * Author: Yannis Seimenis
+ * Description: Static tables describing every tetromino block. For each block type and rotation the
+ * cells are stored once as offsets from the block origin, together with one bitmask per row and the
+ * bounds of the shape, so moving or rotating a block only changes its origin and rotation index.
+ */
+public final class BlockShapes {
+    /**
+     * Global variables
+     */
+    public static final int BLOCK_TYPES = 7;
+
+    /**
+     * Cell offsets [blockType][rotation][cell][x, y], every rotation fits inside a 4x4 box
+     */
+    private static final int[][][][] CELLS = {
+            //I
+            {
+                    {{0, 2}, {1, 2}, {2, 2}, {3, 2}},
+                    {{2, 0}, {2, 1}, {2, 2}, {2, 3}},
+                    {{0, 1}, {1, 1}, {2, 1}, {3, 1}},
+                    {{1, 0}, {1, 1}, {1, 2}, {1, 3}}
+            },
+            //J
+            {
+                    {{0, 0}, {0, 1}, {1, 1}, {2, 1}},
+                    {{2, 0}, {1, 0}, {1, 1}, {1, 2}},
+                    {{2, 2}, {2, 1}, {1, 1}, {0, 1}},
+                    {{0, 2}, {1, 2}, {1, 1}, {1, 0}}
+            },
+            //L
+            {
+                    {{2, 0}, {0, 1}, {1, 1}, {2, 1}},
+                    {{2, 2}, {1, 2}, {1, 1}, {1, 0}},
+                    {{0, 2}, {0, 1}, {1, 1}, {2, 1}},
+                    {{0, 0}, {1, 0}, {1, 1}, {1, 2}}
+            },
+            //O
+            {
+                    {{0, 0}, {1, 0}, {0, 1}, {1, 1}}
+            },
+            //S
+            {
+                    {{1, 0}, {2, 0}, {0, 1}, {1, 1}},
+                    {{1, 0}, {1, 1}, {2, 1}, {2, 2}},
+                    {{1, 1}, {2, 1}, {0, 2}, {1, 2}},
+                    {{0, 0}, {0, 1}, {1, 1}, {1, 2}}
+            },
+            //T
+            {
+                    {{1, 0}, {0, 1}, {1, 1}, {2, 1}},
+                    {{1, 0}, {1, 2}, {1, 1}, {2, 1}},
+                    {{0, 1}, {1, 2}, {1, 1}, {2, 1}},
+                    {{0, 1}, {1, 2}, {1, 1}, {1, 0}}
+            },
+            //Z
+            {
+                    {{0, 0}, {1, 0}, {1, 1}, {2, 1}},
+                    {{2, 0}, {1, 1}, {2, 1}, {1, 2}},
+                    {{0, 1}, {1, 1}, {1, 2}, {2, 2}},
+                    {{1, 0}, {0, 1}, {1, 1}, {0, 2}}
+            }
+    };
+
+    /**
+     * Spawn origin [blockType][x, y]
+     */
+    private static final int[][] SPAWN = {{3, -2}, {3, 0}, {4, 0}, {4, 0}, {4, 0}, {3, 0}, {4, 0}};
+
+    private static final Color[] COLORS = {
+            new Color(247, 202, 208),
+            new Color(249, 190, 199),
+            new Color(251, 177, 189),
+            new Color(255, 153, 172),
+            new Color(255, 133, 161),
+            new Color(255, 112, 150),
+            new Color(255, 92, 138)
+    };
+
+    /**
+     * Row bitmasks [blockType][rotation][y offset], bit x is set when the cell (x, y) is part of the shape
+     */
+    private static final int[][][] ROW_MASKS;
+
+    /**
+     * Shape bounds [blockType][rotation][minX, maxX, minY, maxY]
+     */
+    private static final int[][][] BOUNDS;
+
+    /**
+     * Lowest cell of every column [blockType][rotation][x offset], -1 when the column is not part of the shape
+     */
+    private static final int[][][] COLUMN_BOTTOMS;
+
+    static {
+        ROW_MASKS = new int[BLOCK_TYPES][][];
+        BOUNDS = new int[BLOCK_TYPES][][];
+        COLUMN_BOTTOMS = new int[BLOCK_TYPES][][];
+        for (int type = 0; type < BLOCK_TYPES; type++) {
+            int rotations = CELLS[type].length;
+            ROW_MASKS[type] = new int[rotations][4];
+            BOUNDS[type] = new int[rotations][];
+            COLUMN_BOTTOMS[type] = new int[rotations][];
+            for (int rotation = 0; rotation < rotations; rotation++) {
+                int[] bounds = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+                int[] bottoms = {-1, -1, -1, -1};
+                for (int[] cell : CELLS[type][rotation]) {
+                    ROW_MASKS[type][rotation][cell[1]] |= 1 << cell[0];
+                    bottoms[cell[0]] = Math.max(bottoms[cell[0]], cell[1]);
+                    bounds[0] = Math.min(bounds[0], cell[0]);
+                    bounds[1] = Math.max(bounds[1], cell[0]);
+                    bounds[2] = Math.min(bounds[2], cell[1]);
+                    bounds[3] = Math.max(bounds[3], cell[1]);
+                }
+                BOUNDS[type][rotation] = bounds;
+                COLUMN_BOTTOMS[type][rotation] = bottoms;
+            }
+        }
+    }
+
+    private BlockShapes() {
+    }
+
+    //region Getters
+
+    public static int getRotationCount(int blockType) {
+        return CELLS[blockType].length;
+    }
+
+    public static int getCellX(int blockType, int rotation, int cell) {
+        return CELLS[blockType][rotation][cell][0];
+    }
+
+    public static int getCellY(int blockType, int rotation, int cell) {
+        return CELLS[blockType][rotation][cell][1];
+    }
+
+    public static int getRowMask(int blockType, int rotation, int offsetY) {
+        return ROW_MASKS[blockType][rotation][offsetY];
+    }
+
+    public static int getMinX(int blockType, int rotation) {
+        return BOUNDS[blockType][rotation][0];
+    }
+
+    public static int getMaxX(int blockType, int rotation) {
+        return BOUNDS[blockType][rotation][1];
+    }
+
+    public static int getMinY(int blockType, int rotation) {
+        return BOUNDS[blockType][rotation][2];
+    }
+
+    public static int getMaxY(int blockType, int rotation) {
+        return BOUNDS[blockType][rotation][3];
+    }
+
+    public static int getColumnBottom(int blockType, int rotation, int offsetX) {
+        return COLUMN_BOTTOMS[blockType][rotation][offsetX];
+    }
+
+    public static int getSpawnX(int blockType) {
+        return SPAWN[blockType][0];
+    }
+
+    public static int getSpawnY(int blockType) {
+        return SPAWN[blockType][1];
+    }
+
+    public static Color getColor(int blockType) {
+        return COLORS[blockType];
+    }
+
+    //endregion
+}
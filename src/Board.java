@@ -0,0 +1,441 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Class: Board
+ * Author: Yannis Seimenis
+ * Description: Java class that stores the settled blocks of the game grid as one bitmask per row.
+ * Bit x of a row is set when the cell (x, y) is occupied. Rows wider than 64 columns take several longs,
+ * so testing a block or a full row costs one or two words per row whatever the width or how many cells
+ * are filled. The top rows of the board can be hidden spawn rows, y = 0 is the top of the hidden area.
+ * The block type of every cell is kept alongside so the board is the only source of truth for drawing the
+ * grid. The top-most filled cell of every column is kept up to date as cells are set and rows are cleared,
+ * so the distance a block can drop is known from its columns without stepping it down row by row.
+ */
+public class Board {
+    /**
+     * Global variables
+     */
+    //Dimensions of the standard board, the search based players only play on it
+    public static final int WIDTH = 10;
+    public static final int HEIGHT = 20;
+    public static final int FULL_ROW = (1 << WIDTH) - 1;
+    public static final byte EMPTY = -1;
+    //Coordinates are stored as signed bytes in saved games and snapshots
+    public static final int MAX_SIZE = 127;
+
+    private final int width;
+    private final int height;
+    private final int hiddenRows;
+    private final int words;
+    private final long[] rows;
+    private final int[] rowCounts;
+    private final byte[] cellTypes;
+    private final int[] columnTops;
+    private final long[] columnsSeen;
+
+    /**
+     * Board()
+     * Board constructor, initialises an empty standard board
+     */
+    public Board() {
+        this(WIDTH, HEIGHT, 0);
+    }
+
+    /**
+     * Board(int newWidth, int visibleHeight, int newHiddenRows)
+     * Board constructor, initialises an empty board
+     * @param newWidth - Number of columns
+     * @param visibleHeight - Number of rows shown to the player
+     * @param newHiddenRows - Number of spawn rows above the visible rows
+     */
+    public Board(int newWidth, int visibleHeight, int newHiddenRows) {
+        if (newWidth < 4 || newWidth > MAX_SIZE || visibleHeight < 4 || newHiddenRows < 0
+                || visibleHeight + newHiddenRows > MAX_SIZE) {
+            throw new IllegalArgumentException("Board of " + newWidth + "x" + visibleHeight + " with "
+                    + newHiddenRows + " hidden rows is not supported");
+        }
+        width = newWidth;
+        height = visibleHeight + newHiddenRows;
+        hiddenRows = newHiddenRows;
+        words = (width + 63) >>> 6;
+        rows = new long[height * words];
+        rowCounts = new int[height];
+        cellTypes = new byte[width * height];
+        Arrays.fill(cellTypes, EMPTY);
+        columnTops = new int[width];
+        Arrays.fill(columnTops, height);
+        columnsSeen = new long[words];
+    }
+
+    /**
+     * isInside(int x, int y)
+     * Checks if a cell is inside the board boundaries
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @return - Returns true if the cell is inside the board
+     */
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * isOccupied(int x, int y)
+     * Checks if a cell is occupied by a settled block, cells outside the board count as occupied
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @return - Returns true if the cell is a border or a settled block
+     */
+    public boolean isOccupied(int x, int y) {
+        return !isInside(x, y) || (rows[y * words + (x >>> 6)] & 1L << x) != 0;
+    }
+
+    /**
+     * fits(int blockType, int rotation, int x, int y)
+     * Checks if a whole block fits on the board by testing its row bitmasks against the settled rows, a row
+     * of the block only spans a second word when it crosses a 64 column boundary
+     * @param blockType - Block type represented as int
+     * @param rotation - Rotation index of the block
+     * @param x - X coordinate of the block origin
+     * @param y - Y coordinate of the block origin
+     * @return - Returns true if the block is inside the board and not overlapping a settled block
+     */
+    public boolean fits(int blockType, int rotation, int x, int y) {
+        int minX = BlockShapes.getMinX(blockType, rotation);
+        int minY = BlockShapes.getMinY(blockType, rotation);
+        int maxY = BlockShapes.getMaxY(blockType, rotation);
+        int left = x + minX;
+        if (left < 0 || x + BlockShapes.getMaxX(blockType, rotation) >= width || y + minY < 0 || y + maxY >= height) {
+            return false;
+        }
+        int shift = left & 63;
+        int index = (y + minY) * words + (left >>> 6);
+        for (int i = minY; i <= maxY; i++, index += words) {
+            long mask = BlockShapes.getRowMask(blockType, rotation, i) >>> minX;
+            if ((rows[index] & mask << shift) != 0) {
+                return false;
+            }
+            if (shift > 60) {
+                long spill = mask >>> (64 - shift);
+                if (spill != 0 && (rows[index + 1] & spill) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * fits(int[] rows, int blockType, int rotation, int x, int y)
+     * Checks if a whole block fits on a standard board given as row bitmasks, used to test boards that only
+     * exist during a search
+     * @param rows - Rows of the board as bitmasks
+     * @param blockType - Block type represented as int
+     * @param rotation - Rotation index of the block
+     * @param x - X coordinate of the block origin
+     * @param y - Y coordinate of the block origin
+     * @return - Returns true if the block is inside the board and not overlapping a settled block
+     */
+    public static boolean fits(int[] rows, int blockType, int rotation, int x, int y) {
+        int minY = BlockShapes.getMinY(blockType, rotation);
+        int maxY = BlockShapes.getMaxY(blockType, rotation);
+        if (x + BlockShapes.getMinX(blockType, rotation) < 0 || x + BlockShapes.getMaxX(blockType, rotation) >= WIDTH
+                || y + minY < 0 || y + maxY >= HEIGHT) {
+            return false;
+        }
+        for (int i = minY; i <= maxY; i++) {
+            int mask = BlockShapes.getRowMask(blockType, rotation, i);
+            mask = x >= 0 ? mask << x : mask >>> -x;
+            if ((rows[y + i] & mask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * set(int x, int y, int blockType)
+     * Marks a cell as occupied by a block type
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @param blockType - Block type represented as int
+     */
+    public void set(int x, int y, int blockType) {
+        int index = y * words + (x >>> 6);
+        if ((rows[index] & 1L << x) == 0) {
+            rows[index] |= 1L << x;
+            rowCounts[y]++;
+            columnTops[x] = Math.min(columnTops[x], y);
+        }
+        cellTypes[y * width + x] = (byte) blockType;
+    }
+
+    /**
+     * clear(int x, int y)
+     * Marks a cell as empty
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     */
+    public void clear(int x, int y) {
+        int word = x >>> 6;
+        if ((rows[y * words + word] & 1L << x) != 0) {
+            rows[y * words + word] &= ~(1L << x);
+            rowCounts[y]--;
+            if (columnTops[x] == y) {
+                //Find the next filled cell below
+                int top = y + 1;
+                while (top < height && (rows[top * words + word] & 1L << x) == 0) {
+                    top++;
+                }
+                columnTops[x] = top;
+            }
+        }
+        cellTypes[y * width + x] = EMPTY;
+    }
+
+    /**
+     * clearAll()
+     * Empties the whole board
+     */
+    public void clearAll() {
+        Arrays.fill(rows, 0);
+        Arrays.fill(rowCounts, 0);
+        Arrays.fill(cellTypes, EMPTY);
+        Arrays.fill(columnTops, height);
+    }
+
+    /**
+     * writeState(ByteBuffer out)
+     * Writes the block type of every cell, getStateSize() bytes
+     * @param out - Buffer to write to
+     */
+    public void writeState(ByteBuffer out) {
+        out.put(cellTypes);
+    }
+
+    /**
+     * readState(ByteBuffer in)
+     * Replaces the board with one of the same size written by writeState, the row masks and column tops
+     * are rebuilt
+     * @param in - Buffer to read from
+     */
+    public void readState(ByteBuffer in) {
+        in.get(cellTypes);
+        Arrays.fill(rows, 0);
+        for (int y = 0; y < height; y++) {
+            int count = 0;
+            for (int x = 0; x < width; x++) {
+                if (cellTypes[y * width + x] != EMPTY) {
+                    rows[y * words + (x >>> 6)] |= 1L << x;
+                    count++;
+                }
+            }
+            rowCounts[y] = count;
+        }
+        updateColumnTops();
+    }
+
+    /**
+     * clearFullRows(int top, int bottom)
+     * Removes the full rows between top and bottom and compacts the board in place in a single pass,
+     * every remaining row is moved down by the number of removed rows below it
+     * @param top - Y coordinate of the highest row that can be full
+     * @param bottom - Y coordinate of the lowest row that can be full, at most top + 3
+     * @return - Returns the removed rows encoded as (top << 4) | mask, bit i of the mask is row top + i
+     */
+    public int clearFullRows(int top, int bottom) {
+        int mask = 0;
+        for (int i = top; i <= bottom; i++) {
+            if (rowCounts[i] == width) {
+                mask |= 1 << (i - top);
+            }
+        }
+        if (mask == 0) {
+            return 0;
+        }
+        int write = bottom;
+        for (int read = bottom; read > -1; read--) {
+            if (read >= top && (mask & (1 << (read - top))) != 0) {
+                continue;
+            }
+            if (write != read) {
+                System.arraycopy(rows, read * words, rows, write * words, words);
+                rowCounts[write] = rowCounts[read];
+                System.arraycopy(cellTypes, read * width, cellTypes, write * width, width);
+            }
+            write--;
+        }
+        //Rows left at the top are empty
+        Arrays.fill(rows, 0, (write + 1) * words, 0);
+        Arrays.fill(rowCounts, 0, write + 1, 0);
+        Arrays.fill(cellTypes, 0, (write + 1) * width, EMPTY);
+        updateColumnTops();
+        return (top << 4) | mask;
+    }
+
+    /**
+     * updateColumnTops()
+     * Finds the top-most filled cell of every column by walking down until every column has been seen
+     */
+    private void updateColumnTops() {
+        Arrays.fill(columnTops, height);
+        Arrays.fill(columnsSeen, 0);
+        int seen = 0;
+        for (int y = 0; y < height && seen != width; y++) {
+            for (int word = 0; word < words; word++) {
+                long newColumns = rows[y * words + word] & ~columnsSeen[word];
+                if (newColumns == 0) {
+                    continue;
+                }
+                columnsSeen[word] |= newColumns;
+                seen += Long.bitCount(newColumns);
+                while (newColumns != 0) {
+                    columnTops[(word << 6) + Long.numberOfTrailingZeros(newColumns)] = y;
+                    newColumns &= newColumns - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * dropDistance(int blockType, int rotation, int x, int y)
+     * Finds how many rows a fitting block can move down. When every cell of the block is above the top of
+     * its column the answer comes from the column tops, otherwise the block is under an overhang and is
+     * stepped down with fits()
+     * @param blockType - Block type represented as int
+     * @param rotation - Rotation index of the block
+     * @param x - X coordinate of the block origin
+     * @param y - Y coordinate of the block origin
+     * @return - Returns the number of rows the block can move down
+     */
+    public int dropDistance(int blockType, int rotation, int x, int y) {
+        int distance = height;
+        for (int i = BlockShapes.getMinX(blockType, rotation); i <= BlockShapes.getMaxX(blockType, rotation); i++) {
+            int bottom = y + BlockShapes.getColumnBottom(blockType, rotation, i);
+            int top = columnTops[x + i];
+            if (bottom >= top) {
+                distance = 0;
+                while (fits(blockType, rotation, x, y + distance + 1)) {
+                    distance++;
+                }
+                return distance;
+            }
+            distance = Math.min(distance, top - 1 - bottom);
+        }
+        return distance;
+    }
+
+    /**
+     * getClearedRowCount(int clearedRows)
+     * @param clearedRows - Removed rows as returned by clearFullRows
+     * @return - Returns the number of removed rows
+     */
+    public static int getClearedRowCount(int clearedRows) {
+        return Integer.bitCount(clearedRows & 0xF);
+    }
+
+    /**
+     * isRowCleared(int clearedRows, int y)
+     * @param clearedRows - Removed rows as returned by clearFullRows
+     * @param y - Y coordinate of the row before it was removed
+     * @return - Returns true if the row was removed
+     */
+    public static boolean isRowCleared(int clearedRows, int y) {
+        int offset = y - (clearedRows >> 4);
+        return offset >= 0 && offset < 4 && (clearedRows & (1 << offset)) != 0;
+    }
+
+    /**
+     * isRowFull(int y)
+     * @param y - Y coordinate of the row
+     * @return - Returns true if every cell in the row is occupied
+     */
+    public boolean isRowFull(int y) {
+        return rowCounts[y] == width;
+    }
+
+    /**
+     * getRowCount(int y)
+     * @param y - Y coordinate of the row
+     * @return - Returns the number of occupied cells in the row
+     */
+    public int getRowCount(int y) {
+        return rowCounts[y];
+    }
+
+    /**
+     * getColumnTop(int x)
+     * @param x - X coordinate of the column
+     * @return - Returns the y coordinate of the top-most filled cell of the column, getHeight() if it is empty
+     */
+    public int getColumnTop(int x) {
+        return columnTops[x];
+    }
+
+    /**
+     * getRow(int y)
+     * @param y - Y coordinate of the row
+     * @return - Returns the first 32 columns of the row as a bitmask, the whole row of a standard board
+     */
+    public int getRow(int y) {
+        return (int) rows[y * words];
+    }
+
+    /**
+     * getCellType(int x, int y)
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @return - Returns the block type of a settled cell, EMPTY if the cell is empty
+     */
+    public int getCellType(int x, int y) {
+        return cellTypes[y * width + x];
+    }
+
+    /**
+     * copyCellTypes()
+     * @return - Returns a copy of the block types of all cells, row by row from the top
+     */
+    public byte[] copyCellTypes() {
+        return cellTypes.clone();
+    }
+
+    /**
+     * isStandard()
+     * @return - Returns true if the board has the standard dimensions and no hidden rows
+     */
+    public boolean isStandard() {
+        return width == WIDTH && height == HEIGHT && hiddenRows == 0;
+    }
+
+    //region Getters
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * getHeight()
+     * @return - Returns the number of rows including the hidden rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public int getHiddenRows() {
+        return hiddenRows;
+    }
+
+    public int getVisibleHeight() {
+        return height - hiddenRows;
+    }
+
+    public int getWordsPerRow() {
+        return words;
+    }
+
+    public int getStateSize() {
+        return cellTypes.length;
+    }
+
+    //endregion
+}
@@ -1,13 +1,14 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -23,6 +24,19 @@ public class Frame {
     /**
      * Global variables
      */
+    private static final int CLEAR_ANIMATION_DELAY = 15;
+    private static final int GAME_OVER_ANIMATION_DELAY = 25;
+    //Delayed auto shift and auto repeat rate of held left and right keys, in game loop ticks
+    private static final int DAS_TICKS = 17;
+    private static final int ARR_TICKS = 3;
+    private static final Path REPLAY_FOLDER = Paths.get("replays");
+    private static final Path HIGH_SCORE_FILE = Paths.get("resources", "highscore.txt");
+    private static final Path SAVE_FILE = Paths.get("resources", "savegame.bin");
+    //Cells shrink on tall boards so the grid is never taller than a standard one
+    private static final int CELL_SIZE = 25;
+    private static final int MIN_CELL_SIZE = 4;
+    private static final int MAX_GRID_HEIGHT = 500;
+
     private JFrame jFrame;
 
     private JPanel startPanel;
@@ -31,7 +45,6 @@ public class Frame {
     private JPanel queuePanel;
     private JPanel gameOverPanel;
     private JPanel pauseCoverPanel;
-    private JPanel[][] gameGrid;
 
     private JLabel titleLabel;
     private JLabel backgroundLabel;
@@ -43,6 +56,8 @@ public class Frame {
     private JLabel highScoreLabel;
     private JLabel[] queuePicLabels;
 
+    private GridCanvas gridCanvas;
+
     private Font pixelFont;
 
     private ImageIcon iBlockIcon;
@@ -53,14 +68,31 @@ public class Frame {
     private ImageIcon tBlockIcon;
     private ImageIcon zBlockIcon;
 
-    private Thread titleLabelThread;
-    private Thread blockGravityThread;
+    private Timer titleLabelTimer;
 
     private int currentBackground = 0;
 
-    private boolean animateTitle = true;
+    //Layout derived from the board size, in pixels
+    private final int cellSize;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final int sidePanelX;
+    private final int contentWidth;
+    private final int contentHeight;
 
     private final Game game;
+    private final Assets assets;
+    private final GameLoop gameLoop;
+    private final InputController inputController;
+    private final UiUpdater uiUpdater;
+    private final HighScoreStore highScoreStore;
+    private ReplayRecorder replayRecorder;
+    private SpectatorBroadcaster spectatorBroadcaster;
+
+    //Keys currently held down, the key repeat of the system is ignored
+    private final BitSet keysDown = new BitSet();
+    //Last snapshot whose block was drawn, only touched on the EDT
+    private GameSnapshot drawnSnapshot;
 
     /**
      * Frame(Game newGame)
@@ -69,8 +101,36 @@ public class Frame {
      */
     public Frame(Game newGame) {
         game = newGame;
+        Board board = game.getBoard();
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(CELL_SIZE, MAX_GRID_HEIGHT / board.getVisibleHeight()));
+        gridWidth = board.getWidth() * cellSize;
+        gridHeight = board.getVisibleHeight() * cellSize;
+        sidePanelX = gridWidth + 22;
+        contentWidth = sidePanelX + 130;
+        contentHeight = Math.max(522, gridHeight + 22);
+        assets = Assets.load();
+        inputController = new InputController(DAS_TICKS, ARR_TICKS, new InputController.Listener() {
+            @Override
+            public void onInput(GameInput input, long pressNanos) {
+                if (input == GameInput.HOLD) {
+                    holdBlock(pressNanos);
+                } else {
+                    applyInput(input, pressNanos);
+                }
+            }
+
+            @Override
+            public void onFastFall(boolean fastFall) {
+                setFastFall(fastFall);
+            }
+        });
+        gameLoop = new GameLoop(game, this::onTick, inputController);
+        uiUpdater = new UiUpdater(this::applyUpdates);
+        highScoreStore = HighScoreStore.load(HIGH_SCORE_FILE, HighScoreStore.DEFAULT_CAPACITY);
 
         initFrame();
+        initReplayRecorder();
+        initSpectatorBroadcaster();
         initFont();
         initStartPanel();
         initGameOverMessage();
@@ -88,6 +148,7 @@ public class Frame {
         initFrameBackground();
 
         jFrame.setVisible(true);
+        gameLoop.start();
     }
 
     //region Initialisation Methods
@@ -101,45 +162,82 @@ public class Frame {
         jFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         jFrame.setLayout(null);
         jFrame.setResizable(false);
-        jFrame.setSize(418, 561);
+        jFrame.setSize(contentWidth + 16, contentHeight + 39);
         jFrame.addKeyListener(keyListener);
+        jFrame.addWindowFocusListener(new WindowAdapter() {
+            @Override
+            public void windowLostFocus(WindowEvent e) {
+                //Release events are not delivered without focus, keys would stay held
+                releaseAllKeys();
+            }
+        });
+        jFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveGame();
+                closeReplayRecorder();
+                closeSpectatorBroadcaster();
+                highScoreStore.close();
+            }
+        });
     }
 
     /**
-     * initFont()
-     * Initialises new pixel style font
+     * initReplayRecorder()
+     * Starts recording the session to a new replay file, the game runs without recording if the file
+     * can not be created
      */
-    private void initFont() {
+    private void initReplayRecorder() {
         try {
-            File fontFile = new File("resources/pixeboy-font.ttf");
-            Font newFont = Font.createFont(Font.TRUETYPE_FONT, fontFile);
-            pixelFont = newFont.deriveFont(20f);
-        } catch (IOException | FontFormatException e) {
+            Board board = game.getBoard();
+            replayRecorder = new ReplayRecorder(ReplayRecorder.createFile(REPLAY_FOLDER), game.getSeed(),
+                    game.getPreviewSize(), board.getWidth(), board.getVisibleHeight(), board.getHiddenRows());
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * initFrameBackground()
-     * Initialises label containing background image
+     * initSpectatorBroadcaster()
+     * Streams the game to spectators when started with -Dtetris.spectatorPort=port
      */
-    private void initFrameBackground() {
+    private void initSpectatorBroadcaster() {
+        Integer port = Integer.getInteger("tetris.spectatorPort");
+        if (port == null) {
+            return;
+        }
         try {
-            backgroundLabel = new JLabel(new ImageIcon(ImageIO.read(new File("resources/background.png"))));
-            backgroundLabel.setBounds(0,0, 402, 522);
-            jFrame.add(backgroundLabel);
+            spectatorBroadcaster = new SpectatorBroadcaster(new InetSocketAddress(port), gameLoop::getSnapshot);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * initFont()
+     * Initialises new pixel style font
+     */
+    private void initFont() {
+        pixelFont = assets.getFont().deriveFont(20f);
+    }
+
+    /**
+     * initFrameBackground()
+     * Initialises label containing background image
+     */
+    private void initFrameBackground() {
+        backgroundLabel = new JLabel(assets.getIcon(Assets.BACKGROUND));
+        backgroundLabel.setBounds(0,0, contentWidth, contentHeight);
+        jFrame.add(backgroundLabel);
+    }
+
     /**
      * initStartPanel()
      * Initialises start menu components
      */
     private void initStartPanel() {
         startPanel = new JPanel();
-        startPanel.setBounds(10, 110, 382, 200);
+        startPanel.setBounds(10, 110, contentWidth - 20, 200);
         startPanel.setOpaque(false);
         startPanel.setLayout(new BoxLayout(startPanel, BoxLayout.Y_AXIS));
 
@@ -156,6 +254,29 @@ public class Frame {
         startGameLabel.setFont(pixelFont.deriveFont(40f));
         startPanel.add(startGameLabel);
 
+        if (Files.exists(SAVE_FILE)) {
+            JLabel resumeGameLabel = new JLabel("Resume");
+            resumeGameLabel.setFont(pixelFont.deriveFont(40f));
+            resumeGameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            startPanel.add(resumeGameLabel);
+            resumeGameLabel.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    resumeGame();
+                }
+
+                @Override
+                public void mouseEntered(MouseEvent e) {
+                    resumeGameLabel.setForeground(Color.WHITE);
+                }
+
+                @Override
+                public void mouseExited(MouseEvent e) {
+                    resumeGameLabel.setForeground(new Color(51, 51, 51));
+                }
+            });
+        }
+
         JLabel switchThemeLabel = new JLabel("Switch Theme");
         switchThemeLabel.setFont(pixelFont);
         switchThemeLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -167,14 +288,15 @@ public class Frame {
         startGameLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                animateTitle = false;
-                titleLabelThread.interrupt();
+                titleLabelTimer.stop();
                 startPanel.setVisible(false);
                 gamePanel.setVisible(true);
-                game.startGame();
-                updateQueue();
-                updateCurrentBlock(true);
-                gravity();
+                synchronized (game) {
+                    recordEvent(ReplayRecorder.OP_START);
+                    game.startGame();
+                    gameLoop.publishSnapshot();
+                }
+                uiUpdater.publish(UiUpdater.ALL);
             }
 
             @Override
@@ -212,7 +334,7 @@ public class Frame {
      */
     private void initGamePanel() {
         gamePanel = new JPanel();
-        gamePanel.setBounds(0, 0, 402, 522);
+        gamePanel.setBounds(0, 0, contentWidth, contentHeight);
         gamePanel.setOpaque(false);
         gamePanel.setVisible(false);
         gamePanel.setLayout(null);
@@ -225,7 +347,7 @@ public class Frame {
      */
     private void initGridPanel() {
         gridPanel = new JPanel();
-        gridPanel.setBounds(10, 10, 252, 502);
+        gridPanel.setBounds(10, 10, gridWidth + 2, gridHeight + 2);
         gridPanel.setBorder(new LineBorder(Color.BLACK, 2));
         gridPanel.setOpaque(false);
         gridPanel.setLayout(null);
@@ -234,23 +356,13 @@ public class Frame {
 
     /**
      * initGameGrid()
-     * Initialises 2D array of JPanels aka gameGrid and adds to gamePanel
+     * Initialises the canvas which paints the game grid and adds it to gridPanel
      */
     private void initGameGrid() {
-        gameGrid = new JPanel[10][20];
-        int y = 1;
-        for (int i = 0; i < 20; i++) {
-            int x = 1;
-            for (int j = 0; j < 10; j++) {
-                gameGrid[j][i] = new JPanel();
-                gameGrid[j][i].setBounds(x, y, 25, 25);
-                gameGrid[j][i].setBackground(Color.WHITE);
-                gameGrid[j][i].setOpaque(false);
-                gridPanel.add(gameGrid[j][i]);
-                x += 25;
-            }
-            y += 25;
-        }
+        Board board = game.getBoard();
+        gridCanvas = new GridCanvas(board.getWidth(), board.getVisibleHeight(), board.getHiddenRows(), cellSize);
+        gridCanvas.setBounds(1, 1, gridWidth, gridHeight);
+        gridPanel.add(gridCanvas);
     }
 
     /**
@@ -259,7 +371,7 @@ public class Frame {
      */
     private void initScorePanel() {
         JPanel scorePanel = new JPanel();
-        scorePanel.setBounds(272, 10, 120, 30);
+        scorePanel.setBounds(sidePanelX, 10, 120, 30);
         scorePanel.setOpaque(false);
         scorePanel.setBorder(new LineBorder(Color.BLACK, 2));
         scoreLabel = new JLabel("Score: 0");
@@ -274,7 +386,7 @@ public class Frame {
      */
     private void initLevelPanel() {
         JPanel levelPanel = new JPanel();
-        levelPanel.setBounds(272, 50, 120, 30);
+        levelPanel.setBounds(sidePanelX, 50, 120, 30);
         levelPanel.setOpaque(false);
         levelPanel.setBorder(new LineBorder(Color.BLACK, 2));
         levelLabel = new JLabel("Level: 0");
@@ -289,7 +401,7 @@ public class Frame {
      */
     private void initLinesPanel() {
         JPanel linesPanel = new JPanel();
-        linesPanel.setBounds(272, 90, 120, 30);
+        linesPanel.setBounds(sidePanelX, 90, 120, 30);
         linesPanel.setOpaque(false);
         linesPanel.setBorder(new LineBorder(Color.BLACK, 2));
         linesLabel = new JLabel("Lines: 0");
@@ -300,20 +412,16 @@ public class Frame {
 
     /**
      * initImageIcons()
-     * Initialises all image icons from file
+     * Initialises all image icons from the asset cache
      */
     private void initImageIcons() {
-        try {
-            iBlockIcon = new ImageIcon(ImageIO.read(new File("resources/IBlock.png")));
-            jBlockIcon = new ImageIcon(ImageIO.read(new File("resources/JBlock.png")));
-            lBlockIcon = new ImageIcon(ImageIO.read(new File("resources/LBlock.png")));
-            oBlockIcon = new ImageIcon(ImageIO.read(new File("resources/OBlock.png")));
-            sBlockIcon = new ImageIcon(ImageIO.read(new File("resources/SBlock.png")));
-            tBlockIcon = new ImageIcon(ImageIO.read(new File("resources/TBlock.png")));
-            zBlockIcon = new ImageIcon(ImageIO.read(new File("resources/ZBlock.png")));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        iBlockIcon = assets.getBlockIcon(0);
+        jBlockIcon = assets.getBlockIcon(1);
+        lBlockIcon = assets.getBlockIcon(2);
+        oBlockIcon = assets.getBlockIcon(3);
+        sBlockIcon = assets.getBlockIcon(4);
+        tBlockIcon = assets.getBlockIcon(5);
+        zBlockIcon = assets.getBlockIcon(6);
     }
 
     /**
@@ -322,16 +430,16 @@ public class Frame {
      */
     private void initQueuePanel() {
         queuePanel = new JPanel();
-        queuePanel.setBounds(272, 130, 120, 190);
+        queuePanel.setBounds(sidePanelX, 130, 120, 190);
         queuePanel.setBorder(new LineBorder(Color.BLACK, 2));
         queuePanel.setLayout(null);
         queuePanel.setOpaque(false);
         gamePanel.add(queuePanel);
         queuePicLabels  = new JLabel[3];
-        queuePicLabels[0] = new JLabel();
-        queuePicLabels[1] = new JLabel();
-        queuePicLabels[2] = new JLabel();
-        updateQueue();
+        for (int i = 0; i < 3; i++) {
+            queuePicLabels[i] = new JLabel();
+            queuePanel.add(queuePicLabels[i]);
+        }
     }
 
     /**
@@ -342,7 +450,7 @@ public class Frame {
         JLabel holdLabel = new JLabel("Hold Block (H)");
         holdLabel.setFont(pixelFont);
         JPanel holdPanel = new JPanel();
-        holdPanel.setBounds(272, 330, 120, 90);
+        holdPanel.setBounds(sidePanelX, 330, 120, 90);
         holdPanel.setBackground(null);
         holdPanel.setOpaque(false);
         holdPanel.setBorder(new LineBorder(Color.BLACK, 2));
@@ -358,7 +466,7 @@ public class Frame {
      */
     private void initPausePanel() {
         pauseCoverPanel = new JPanel();
-        pauseCoverPanel.setBounds(10, 10, 252, 502);
+        pauseCoverPanel.setBounds(10, 10, gridWidth + 2, gridHeight + 2);
         pauseCoverPanel.setBorder(new LineBorder(Color.BLACK, 2));
         pauseCoverPanel.setBackground(new Color(51, 51, 51, 150));
         pauseCoverPanel.setVisible(false);
@@ -370,7 +478,7 @@ public class Frame {
         pauseCoverPanel.add(pauseCoverLabel);
 
         JPanel pausePanel = new JPanel();
-        pausePanel.setBounds(272, 430, 120, 30);
+        pausePanel.setBounds(sidePanelX, 430, 120, 30);
         pausePanel.setOpaque(false);
         pausePanel.setBorder(new LineBorder(Color.BLACK, 2));
 
@@ -404,7 +512,7 @@ public class Frame {
      */
     private void initGameOverMessage() {
         gameOverPanel = new JPanel();
-        gameOverPanel.setBounds(10, 110, 382, 200);
+        gameOverPanel.setBounds(10, 110, contentWidth - 20, 200);
         gameOverPanel.setOpaque(false);
         gameOverPanel.setLayout(new BoxLayout(gameOverPanel, BoxLayout.Y_AXIS));
 
@@ -453,52 +561,43 @@ public class Frame {
     //region Update Methods
 
     /**
-     * updateQueue()
-     * Updates the images and location in the queue panel
-     */
-    private void updateQueue() {
-        Thread queueThread = new Thread(() -> {
-            for (int i = 0; i < 3; i++) {
-                switch (game.getBlockQueue()[i]) {
-                    case 0 -> {
-                        queuePicLabels[i].setIcon(iBlockIcon);
-                        queuePicLabels[i].setBounds(10, 22 + (i * 60), 100, 25);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 1 -> {
-                        queuePicLabels[i].setIcon(jBlockIcon);
-                        queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 2 -> {
-                        queuePicLabels[i].setIcon(lBlockIcon);
-                        queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 3 -> {
-                        queuePicLabels[i].setIcon(oBlockIcon);
-                        queuePicLabels[i].setBounds(35, 10 + (i * 60), 50, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 4 -> {
-                        queuePicLabels[i].setIcon(sBlockIcon);
-                        queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 5 -> {
-                        queuePicLabels[i].setIcon(tBlockIcon);
-                        queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
-                    case 6 -> {
-                        queuePicLabels[i].setIcon(zBlockIcon);
-                        queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
-                        queuePanel.add(queuePicLabels[i]);
-                    }
+     * updateQueue(GameSnapshot snapshot)
+     * Updates the images and location in the queue panel, called on the EDT
+     * @param snapshot - State of the game to show
+     */
+    private void updateQueue(GameSnapshot snapshot) {
+        for (int i = 0; i < Math.min(3, snapshot.getPreviewSize()); i++) {
+            switch (snapshot.getQueuedBlock(i)) {
+                case 0 -> {
+                    queuePicLabels[i].setIcon(iBlockIcon);
+                    queuePicLabels[i].setBounds(10, 22 + (i * 60), 100, 25);
+                }
+                case 1 -> {
+                    queuePicLabels[i].setIcon(jBlockIcon);
+                    queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
+                }
+                case 2 -> {
+                    queuePicLabels[i].setIcon(lBlockIcon);
+                    queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
+                }
+                case 3 -> {
+                    queuePicLabels[i].setIcon(oBlockIcon);
+                    queuePicLabels[i].setBounds(35, 10 + (i * 60), 50, 50);
+                }
+                case 4 -> {
+                    queuePicLabels[i].setIcon(sBlockIcon);
+                    queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
+                }
+                case 5 -> {
+                    queuePicLabels[i].setIcon(tBlockIcon);
+                    queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
+                }
+                case 6 -> {
+                    queuePicLabels[i].setIcon(zBlockIcon);
+                    queuePicLabels[i].setBounds(22, 10 + (i * 60), 75, 50);
                 }
             }
-        });
-        queueThread.start();
+        }
     }
 
     /**
@@ -506,26 +605,23 @@ public class Frame {
      * Updates the current background image
      */
     private void changeBackgroundImage() {
-        try {
-            if (currentBackground == 0) {
-                backgroundLabel.setIcon(new ImageIcon(ImageIO.read(new File("resources/background-2.png"))));
-                currentBackground = 1;
-            } else if (currentBackground == 1) {
-                backgroundLabel.setIcon(new ImageIcon(ImageIO.read(new File("resources/background.png"))));
-                currentBackground = 0;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (currentBackground == 0) {
+            backgroundLabel.setIcon(assets.getIcon(Assets.BACKGROUND_2));
+            currentBackground = 1;
+        } else if (currentBackground == 1) {
+            backgroundLabel.setIcon(assets.getIcon(Assets.BACKGROUND));
+            currentBackground = 0;
         }
     }
 
     /**
-     * updateHoldImage()
+     * updateHoldImage(GameSnapshot snapshot)
      * Updates the image in hold panel
+     * @param snapshot - State of the game to show
      */
-    private void updateHoldImage() {
-        if (game.getCurrentHoldBlock() != -1) {
-            ImageIcon icon = switch (game.getCurrentHoldBlock()) {
+    private void updateHoldImage(GameSnapshot snapshot) {
+        if (snapshot.getHoldBlock() != -1) {
+            ImageIcon icon = switch (snapshot.getHoldBlock()) {
                 case 0 -> iBlockIcon;
                 case 1 -> jBlockIcon;
                 case 2 -> lBlockIcon;
@@ -542,47 +638,70 @@ public class Frame {
     }
 
     /**
-     * updateScoreLabel()
+     * updateScoreLabel(GameSnapshot snapshot)
      * Updates the text inside the score panel
+     * @param snapshot - State of the game to show
      */
-    private void updateScoreLabel() {
-        scoreLabel.setText("Score: " + game.getScore());
+    private void updateScoreLabel(GameSnapshot snapshot) {
+        scoreLabel.setText("Score: " + snapshot.getScore());
     }
 
     /**
-     * updateLevelLabel()
+     * updateLevelLabel(GameSnapshot snapshot)
      * Updates the text inside the level label
+     * @param snapshot - State of the game to show
      */
-    private void updateLevelLabel() {
-        levelLabel.setText("Level: " + game.getLevel());
+    private void updateLevelLabel(GameSnapshot snapshot) {
+        levelLabel.setText("Level: " + snapshot.getLevel());
     }
 
     /**
-     * updateLinesLabel()
-     * Updates the text inside the
+     * updateLinesLabel(GameSnapshot snapshot)
+     * Updates the text inside the lines label
+     * @param snapshot - State of the game to show
      */
-    private void updateLinesLabel() {
-        linesLabel.setText("Lines: " + game.getTotalLines());
+    private void updateLinesLabel(GameSnapshot snapshot) {
+        linesLabel.setText("Lines: " + snapshot.getLines());
     }
 
     /**
-     * updateCurrentBlock(boolean isNewBlock)
-     * Updates the new position of current block and grid and removes previous block location
-     * if not new block
-     * @param isNewBlock - Boolean representing if block to update is new or not
+     * updateCurrentBlock(GameSnapshot snapshot)
+     * Draws the current block and its ghost at their new position, the canvas clears the previous position
+     * @param snapshot - State of the game to show
      */
-    private void updateCurrentBlock(boolean isNewBlock) {
-        if (!isNewBlock) {
-            for (int i = 0; i < 4; i++) {
-                gameGrid[game.getPreviousBlockPos()[i][0]][game.getPreviousBlockPos()[i][1]].setBackground(Color.WHITE);
-                gameGrid[game.getPreviousBlockPos()[i][0]][game.getPreviousBlockPos()[i][1]].setBorder(null);
-                gameGrid[game.getPreviousBlockPos()[i][0]][game.getPreviousBlockPos()[i][1]].setOpaque(false);
-            }
+    private void updateCurrentBlock(GameSnapshot snapshot) {
+        int[][] blockCells = snapshot.getBlockCells();
+        Color color = BlockShapes.getColor(snapshot.getBlockType());
+        gridCanvas.setGhost(blockCells, snapshot.getDropDistance(), color);
+        gridCanvas.setPiece(blockCells, color);
+    }
+
+    /**
+     * applyUpdates(int flags)
+     * Applies a batch of UI updates published through the UiUpdater from the latest game snapshot,
+     * called on the EDT
+     * @param flags - Dirty flags of the parts to update
+     */
+    private void applyUpdates(int flags) {
+        GameSnapshot snapshot = gameLoop.getSnapshot();
+        if ((flags & UiUpdater.SCORE) != 0) {
+            updateScoreLabel(snapshot);
+            updateLevelLabel(snapshot);
+            updateLinesLabel(snapshot);
+        }
+        if ((flags & UiUpdater.QUEUE) != 0) {
+            updateQueue(snapshot);
         }
-        for (int i = 0; i < 4; i++) {
-            gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setOpaque(true);
-            gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBackground(game.getCurrentBlockColor());
-            gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBorder(new LineBorder(Color.BLACK));
+        if ((flags & UiUpdater.HOLD) != 0) {
+            updateHoldImage(snapshot);
+        }
+        if ((flags & UiUpdater.BLOCK) != 0 && snapshot.isRunning()) {
+            updateCurrentBlock(snapshot);
+            if (snapshot != drawnSnapshot) {
+                //A key press is measured up to the first paint of the snapshot published for it
+                gridCanvas.setInputNanos(snapshot.getInputNanos());
+                drawnSnapshot = snapshot;
+            }
         }
     }
 
@@ -590,246 +709,363 @@ public class Frame {
 
     /**
      * keyListener
-     * Key listener which is added to main frame to get user input
-     * from keyboard and send to appropriate methods
+     * Key listener which is added to main frame to get user input from keyboard, game keys are
+     * queued for the game loop and only their first press and their release are passed on
      */
     private final KeyListener keyListener = new KeyAdapter() {
         @Override
         public void keyPressed(KeyEvent e) {
-            if (e.getKeyCode() == 37 || e.getKeyCode() == 65) {
-                game.moveSide(0);
-                updateCurrentBlock(false);
-            } else if (e.getKeyCode() == 39 || e.getKeyCode() == 68) {
-                game.moveSide(1);
-                updateCurrentBlock(false);
-            } else if (e.getKeyCode() == 40 || e.getKeyCode() == 83) {
-                game.setFastFall(true);
-            } else if (e.getKeyCode() == 38 || e.getKeyCode() == 87) {
-                game.rotateBlock();
-                updateCurrentBlock(false);
-            } else if (e.getKeyCode() == 72) {
-                holdBlock();
-            } else if (e.getKeyCode() == 80) {
+            if (e.getKeyCode() == 80) {
                 pauseGame();
+                return;
+            }
+            int command = keyCommand(e.getKeyCode(), true);
+            if (command != -1 && !keysDown.get(e.getKeyCode())) {
+                keysDown.set(e.getKeyCode());
+                inputController.submit(command, Metrics.ENABLED ? System.nanoTime() : 0);
             }
         }
 
         @Override
         public void keyReleased(KeyEvent e) {
-            if (e.getKeyCode() == 40 || e.getKeyCode() == 83) {
-                game.setFastFall(false);
+            int command = keyCommand(e.getKeyCode(), false);
+            if (keysDown.get(e.getKeyCode())) {
+                keysDown.clear(e.getKeyCode());
+                if (command != -1) {
+                    inputController.submit(command);
+                }
             }
         }
     };
 
+    /**
+     * keyCommand(int keyCode, boolean pressed)
+     * @param keyCode - Code of the key
+     * @param pressed - True for a key press, false for a release
+     * @return - Returns the input controller command of the key event, -1 if the event has none
+     */
+    private static int keyCommand(int keyCode, boolean pressed) {
+        return switch (keyCode) {
+            case 37, 65 -> pressed ? InputController.PRESS_LEFT : InputController.RELEASE_LEFT;
+            case 39, 68 -> pressed ? InputController.PRESS_RIGHT : InputController.RELEASE_RIGHT;
+            case 40, 83 -> pressed ? InputController.PRESS_SOFT_DROP : InputController.RELEASE_SOFT_DROP;
+            case 38, 87 -> pressed ? InputController.ROTATE : -1;
+            case 32 -> pressed ? InputController.HARD_DROP : -1;
+            case 72 -> pressed ? InputController.HOLD : -1;
+            default -> -1;
+        };
+    }
+
+    /**
+     * releaseAllKeys()
+     * Releases every key that is held down
+     */
+    private void releaseAllKeys() {
+        for (int keyCode = keysDown.nextSetBit(0); keyCode >= 0; keyCode = keysDown.nextSetBit(keyCode + 1)) {
+            int command = keyCommand(keyCode, false);
+            if (command != -1) {
+                inputController.submit(command);
+            }
+        }
+        keysDown.clear();
+    }
+
+    /**
+     * applyInput(GameInput input, long pressNanos)
+     * Applies and records a player input, called by the input controller on the game loop thread between
+     * two ticks
+     * @param input - Input to apply
+     * @param pressNanos - Time of the key press, carried by the published snapshot, 0 if not measured
+     */
+    private void applyInput(GameInput input, long pressNanos) {
+        synchronized (game) {
+            if (!game.isRunning()) {
+                return;
+            }
+            recordEvent(ReplayRecorder.inputOp(input));
+            boolean locked = game.apply(input);
+            gameLoop.publishSnapshot(pressNanos);
+            if (locked) {
+                //Same updates as a block locked by gravity
+                onTick(Game.TICK_LOCKED);
+                return;
+            }
+        }
+        uiUpdater.publish(UiUpdater.BLOCK);
+    }
+
+    /**
+     * setFastFall(boolean fastFall)
+     * Turns fast fall on or off and records it if it changed
+     * @param fastFall - True while the soft drop key is held
+     */
+    private void setFastFall(boolean fastFall) {
+        synchronized (game) {
+            if (game.isFastFall() != fastFall) {
+                recordEvent(fastFall ? ReplayRecorder.OP_FAST_FALL_ON : ReplayRecorder.OP_FAST_FALL_OFF);
+                game.setFastFall(fastFall);
+            }
+        }
+    }
+
+    /**
+     * recordEvent(int op)
+     * Records an event stamped with the current tick, must be called while holding the lock of the game
+     * @param op - Opcode of the event
+     */
+    private void recordEvent(int op) {
+        if (replayRecorder != null) {
+            replayRecorder.record(gameLoop.getTickCount(), op);
+        }
+    }
+
+    /**
+     * saveGame()
+     * Suspends a running game to the save file so it can be resumed on the next start
+     */
+    private void saveGame() {
+        ByteBuffer state = ByteBuffer.allocate(game.getStateSize());
+        synchronized (game) {
+            if (!game.isRunning()) {
+                return;
+            }
+            game.writeState(state);
+        }
+        try {
+            AtomicFile.write(SAVE_FILE, state.array());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * resumeGame()
+     * Continues the game from the save file, the save is deleted so it can only be resumed once
+     */
+    private void resumeGame() {
+        try {
+            ByteBuffer state = ByteBuffer.wrap(Files.readAllBytes(SAVE_FILE));
+            synchronized (game) {
+                game.readState(state);
+                if (replayRecorder != null) {
+                    replayRecorder.recordState(gameLoop.getTickCount(), game);
+                }
+                gameLoop.publishSnapshot();
+            }
+            Files.deleteIfExists(SAVE_FILE);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return;
+        }
+        titleLabelTimer.stop();
+        startPanel.setVisible(false);
+        gamePanel.setVisible(true);
+        updateBoard();
+        uiUpdater.publish(UiUpdater.ALL);
+    }
+
+    /**
+     * closeReplayRecorder()
+     * Ends the replay of the session
+     */
+    private void closeReplayRecorder() {
+        synchronized (game) {
+            if (replayRecorder != null) {
+                replayRecorder.close(gameLoop.getTickCount(), game.getScore());
+                replayRecorder = null;
+            }
+        }
+    }
+
+    /**
+     * closeSpectatorBroadcaster()
+     * Disconnects the spectators
+     */
+    private void closeSpectatorBroadcaster() {
+        if (spectatorBroadcaster != null) {
+            try {
+                spectatorBroadcaster.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * animateTitleLabel()
      * Creates an animation to move tetris title label up and down indefinitely until
-     * game starts
+     * game starts, driven by a Swing timer on the EDT
      */
     private void animateTitleLabel() {
-        titleLabelThread = new Thread(() -> {
-            int count = 0;
-            while (animateTitle) {
-                if (count < 5) {
-                    titleLabel.setLocation(titleLabel.getX(), titleLabel.getY() + 1);
-                } else if (count < 9) {
-                    titleLabel.setLocation(titleLabel.getX(), titleLabel.getY() - 1);
-                } else {
-                    count = 0;
-                }
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ignored) {}
-                count++;
+        int[] count = {0};
+        titleLabelTimer = new Timer(100, e -> {
+            if (count[0] < 5) {
+                titleLabel.setLocation(titleLabel.getX(), titleLabel.getY() + 1);
+            } else if (count[0] < 9) {
+                titleLabel.setLocation(titleLabel.getX(), titleLabel.getY() - 1);
+            } else {
+                count[0] = 0;
             }
+            count[0]++;
         });
-        titleLabelThread.start();
+        titleLabelTimer.start();
     }
 
     /**
-     * gravity()
-     * Gravity method controls the falling and updating of blocks in the game grid
+     * onTick(int tickResult)
+     * Publishes the UI updates after a game loop tick moved or locked the current block, called on the
+     * game loop thread or after a hard drop, always while holding the lock of the game and after the
+     * snapshot of the change was published
+     * @param tickResult - Result of the tick, Game.TICK_MOVED or Game.TICK_LOCKED
      */
-    private void gravity() {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException ignored) {}
-        blockGravityThread = new Thread(() -> {
-            while (game.isRunning()) {
-                if (!game.isTouchingBottomOrBlock()) {
-                    //Copy array
-                    game.updatePreviousBlockPos();
-                    game.moveBlockDown();
-                    updateCurrentBlock(false);
-                    try {
-                        for (int i = 0; i < game.getFallDelay()/50 && !game.isFastFall(); i++) {
-                            Thread.sleep(50);
-                        }
-                        if (game.isFastFall()) {
-                            Thread.sleep(50);
-                        }
-                    } catch (InterruptedException ignored) {
-                    }
+    private void onTick(int tickResult) {
+        if (tickResult == Game.TICK_MOVED) {
+            uiUpdater.publish(UiUpdater.BLOCK);
+        } else if (tickResult == Game.TICK_LOCKED) {
+            //Copy lock details, the game keeps changing while the EDT catches up
+            int[][] lockedPos = new int[4][];
+            for (int i = 0; i < 4; i++) {
+                lockedPos[i] = game.getLastLockedBlockPos()[i].clone();
+            }
+            Color lockedColor = BlockShapes.getColor(game.getLastLockedBlockType());
+            int clearedRows = game.getLastClearedRows();
+            int clearedRowCount = Board.getClearedRowCount(clearedRows);
+            if (clearedRowCount > 0) {
+                //Hold the game until the clear line animation has finished
+                gameLoop.freeze(clearedRowCount * game.getBoard().getWidth() * CLEAR_ANIMATION_DELAY / Game.TICK_MILLIS);
+            }
+            boolean gameOver = !game.isRunning();
+            uiUpdater.post(() -> {
+                for (int i = 0; i < 4; i++) {
+                    gridCanvas.setCell(lockedPos[i][0], lockedPos[i][1], lockedColor);
+                }
+                if (gameOver) {
+                    gridCanvas.hidePiece();
+                    gameOverAnimation();
+                } else if (clearedRowCount > 0) {
+                    animateClearedRows(clearedRows);
                 } else {
-                    game.addCurrentToSetBlock();
-                    removeRows(game.checkForFullRows());
-                    updateScoreLabel();
-                    updateLevelLabel();
-                    updateLinesLabel();
-                    if (!game.checkIfGameOver()) {
-                        game.nextBlock();
-                        game.setHeldThisTurn(false);
-                        updateQueue();
-                        updateCurrentBlock(true);
-                    } else {
-                        blockGravityThread.interrupt();
-                        gameOverAnimation();
-                        game.checkIfHighScore();
-                        showGameOverMessage();
-                    }
+                    updateBoard();
                 }
-            }
-        });
-        blockGravityThread.start();
+            });
+            uiUpdater.publish(UiUpdater.SCORE | UiUpdater.QUEUE | UiUpdater.BLOCK);
+        }
     }
 
     /**
-     * showGameOverMessage()
+     * showGameOverMessage(GameSnapshot snapshot)
      * Shows the game over message when game is finished, hides main game panel
+     * @param snapshot - Final state of the game
      */
-    private void showGameOverMessage() {
+    private void showGameOverMessage(GameSnapshot snapshot) {
         gamePanel.setVisible(false);
-        gameOverScoreLabel.setText("Score: " + game.getScore());
-        highScoreLabel.setText("High Score: " + game.getHighScoreFromFile());
+        gameOverScoreLabel.setText("Score: " + snapshot.getScore());
+        highScoreLabel.setText("High Score: " + highScoreStore.getHighScore());
         gameOverPanel.setVisible(true);
     }
 
     /**
      * gameOverAnimation()
-     * Displays animation when game is over
+     * Displays animation when game is over, then checks the high score and shows the game over message
      */
     public void gameOverAnimation() {
-        for (int i = 0; i < 20; i++) {
-            for (int j = 0; j < 10; j++) {
-                if (gameGrid[j][i].getBackground() != Color.WHITE) {
-                    int green = ThreadLocalRandom.current().nextInt(150, 251);
-                    int blue = ThreadLocalRandom.current().nextInt(85, 186);
-                    gameGrid[j][i].setBackground(new Color(250, green, blue));
-                    try {
-                        Thread.sleep(25);
-                    } catch (InterruptedException ignored) {}
-                    gameGrid[j][i].setBackground(Color.WHITE);
-                    gameGrid[j][i].setBorder(null);
-                    gameGrid[j][i].setOpaque(false);
-                }
+        int width = game.getBoard().getWidth();
+        int cellCount = width * game.getBoard().getHeight();
+        //Index of the next cell to check and of the cell currently flashing
+        int[] cell = {0, -1};
+        Timer timer = new Timer(GAME_OVER_ANIMATION_DELAY, null);
+        timer.addActionListener(e -> {
+            if (cell[1] != -1) {
+                gridCanvas.clearCell(cell[1] % width, cell[1] / width);
+                cell[1] = -1;
             }
-        }
+            //Skip empty cells, flash one set cell per timer tick
+            while (cell[0] < cellCount && gridCanvas.getCell(cell[0] % width, cell[0] / width) == null) {
+                cell[0]++;
+            }
+            if (cell[0] < cellCount) {
+                int green = ThreadLocalRandom.current().nextInt(150, 251);
+                int blue = ThreadLocalRandom.current().nextInt(85, 186);
+                gridCanvas.setCell(cell[0] % width, cell[0] / width, new Color(250, green, blue));
+                cell[1] = cell[0];
+                cell[0]++;
+            } else {
+                timer.stop();
+                GameSnapshot snapshot = gameLoop.getSnapshot();
+                highScoreStore.submit(snapshot.getScore(), snapshot.getLines(), snapshot.getLevel());
+                showGameOverMessage(snapshot);
+            }
+        });
+        timer.start();
     }
 
     /**
-     * removeRows(ArrayList<Integer> rowsToRemove)
-     * Plays clear line animation, removes row and shuffles blocks above down
-     * @param rowsToRemove - ArrayList of rows (y coordinate) to remove
+     * animateClearedRows(int clearedRows)
+     * Plays clear line animation on the rows removed by the game, then redraws the grid from the board
+     * @param clearedRows - Removed rows as returned by Game.getLastClearedRows
      */
-    private void removeRows(ArrayList<Integer> rowsToRemove) {
-        //Clear line animation
-        for (Integer i : rowsToRemove) {
-            int green = 250;
-            int blue = 185;
-            for (int j = 0; j < 10; j++) {
-                gameGrid[j][i].setBackground(new Color(250, green, blue));
-                green -= 10;
-                blue -= 10;
-                try {
-                    Thread.sleep(15);
-                } catch (InterruptedException ignored) {}
+    private void animateClearedRows(int clearedRows) {
+        int width = game.getBoard().getWidth();
+        int[] rows = new int[Board.getClearedRowCount(clearedRows)];
+        int count = 0;
+        for (int i = game.getBoard().getHeight() - 1; i > -1; i--) {
+            if (Board.isRowCleared(clearedRows, i)) {
+                rows[count++] = i;
             }
         }
-        //Remove line
-        for (Integer i: rowsToRemove) {
-            for (int j = 0; j < 10; j++) {
-                //Remove row blocks from setBlocks arraylist
-                for (int k = 0; k < game.getSetBlocks().size(); k++) {
-                    if (Arrays.equals(new int[]{j, i}, game.getSetBlocks().get(k))) {
-                        game.removeFromSetBlocks(k);
-                    }
-                    //Remove from grid
-                    gameGrid[j][i].setBackground(Color.WHITE);
-                    gameGrid[j][i].setBorder(null);
-                    gameGrid[j][i].setOpaque(false);
-                }
-            }
-        }
-        //Shuffle above removed line
-        Collections.reverse(rowsToRemove);
-        for (Integer i: rowsToRemove) {
-            //Copy and remove grid colors above remove line
-            Color[][] gridColors = new Color[10][i];
-            for (int j = 0; j < i; j++) {
-                for (int k = 0; k < 10; k++) {
-                    //COPY
-                    gridColors[k][j] = gameGrid[k][j].getBackground();
-                    //REMOVE
-                    gameGrid[k][j].setBackground(Color.WHITE);
-                    gameGrid[k][j].setBorder(null);
-                    gameGrid[k][j].setOpaque(false);
-                }
-            }
-            //Repaint colors
-            for (int j = 0; j < i; j++) {
-                for (int k = 0; k < 10; k++) {
-                    if (gridColors[k][j] != Color.WHITE) {
-                        gameGrid[k][j + 1].setBackground(gridColors[k][j]);
-                        gameGrid[k][j + 1].setBorder(new LineBorder(Color.BLACK));
-                        gameGrid[k][j + 1].setOpaque(true);
-                    }
-                }
+        int[] cell = {0};
+        Timer timer = new Timer(CLEAR_ANIMATION_DELAY, null);
+        timer.addActionListener(e -> {
+            if (cell[0] < rows.length * width) {
+                //Clear line animation, the colour fades across the row whatever its width
+                int i = rows[cell[0] / width];
+                int j = cell[0] % width;
+                int shade = j * 100 / width;
+                gridCanvas.setCell(j, i, new Color(250, 250 - shade, 185 - shade));
+                cell[0]++;
+            } else {
+                timer.stop();
+                updateBoard();
             }
-            //Remove old setBlocks
-            game.clearSetBlocks();
-            //Add new setBlocks
-            for (int j = 0; j < 20; j++) {
-                for (int k = 0; k < 10; k++) {
-                    if (gameGrid[k][j].getBackground() != Color.WHITE) {
-                        game.addToSetBlocks(new int[]{k, j});
-                    }
-                }
+        });
+        timer.start();
+    }
+
+    /**
+     * updateBoard()
+     * Redraws the settled cells of the grid from the latest game snapshot, only changed cells are repainted
+     */
+    private void updateBoard() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        GameSnapshot snapshot = gameLoop.getSnapshot();
+        for (int i = 0; i < snapshot.getHeight(); i++) {
+            for (int j = 0; j < snapshot.getWidth(); j++) {
+                int blockType = snapshot.getCellType(j, i);
+                gridCanvas.setCell(j, i, blockType == Board.EMPTY ? null : BlockShapes.getColor(blockType));
             }
         }
+        if (Metrics.ENABLED) {
+            Metrics.BOARD_SYNC_TIME.recordSince(start);
+        }
     }
 
     /**
-     * holdBlock()
+     * holdBlock(long pressNanos)
      * Holds the current block and recalls block that is currently on hold
+     * @param pressNanos - Time of the key press, dropped if the block could not be held, 0 if not measured
      */
-    private void holdBlock() {
-        if (!game.isHeldThisTurn()) {
-            if (game.getCurrentHoldBlock() != -1) {
-                for (int i = 0; i < 4; i++) {
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBackground(Color.WHITE);
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBorder(null);
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setOpaque(false);
-                }
-                int temp = game.getCurrentBlockType();
-                game.newCurrentBlock(game.getCurrentHoldBlock());
-                game.setCurrentHoldBlock(temp);
-                updateHoldImage();
-                updateCurrentBlock(true);
-            } else {
-                game.setCurrentHoldBlock(game.getCurrentBlockType());
-                updateHoldImage();
-                for (int i = 0; i < 4; i++) {
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBackground(Color.WHITE);
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setBorder(null);
-                    gameGrid[game.getCurrentBlockPos()[i][0]][game.getCurrentBlockPos()[i][1]].setOpaque(false);
-                }
-                game.nextBlock();
-                updateCurrentBlock(true);
-                game.shuffleAndAddToQueue();
-                updateQueue();
+    private void holdBlock(long pressNanos) {
+        boolean held;
+        synchronized (game) {
+            if (!game.isRunning()) {
+                return;
             }
-            game.setHeldThisTurn(true);
+            recordEvent(ReplayRecorder.inputOp(GameInput.HOLD));
+            held = game.holdBlock();
+            gameLoop.publishSnapshot(held ? pressNanos : 0);
+        }
+        if (held) {
+            uiUpdater.publish(UiUpdater.HOLD | UiUpdater.BLOCK | UiUpdater.QUEUE);
         }
     }
 
@@ -838,13 +1074,14 @@ public class Frame {
      * Pauses or resumes the game when key pressed or button clicked
      */
     private void pauseGame() {
-        if (game.isRunning()) {
-            game.setRunning(false);
-            blockGravityThread.interrupt();
+        if (!gameLoop.getSnapshot().isRunning()) {
+            return;
+        }
+        if (!gameLoop.isPaused()) {
+            gameLoop.setPaused(true);
             pauseCoverPanel.setVisible(true);
         } else {
-            game.setRunning(true);
-            gravity();
+            gameLoop.setPaused(false);
             pauseCoverPanel.setVisible(false);
         }
     }
@@ -854,15 +1091,15 @@ public class Frame {
      * Resets the game
      */
     private void resetGame() {
-        game.resetGame();
+        synchronized (game) {
+            recordEvent(ReplayRecorder.OP_RESET);
+            game.resetGame();
+            gameLoop.publishSnapshot();
+        }
+        gridCanvas.clearAll();
         gameOverPanel.setVisible(false);
         gamePanel.setVisible(true);
-        updateHoldImage();
-        updateQueue();
-        updateScoreLabel();
-        updateLinesLabel();
-        updateLevelLabel();
-        gravity();
+        uiUpdater.publish(UiUpdater.ALL);
     }
 
 }
@@ -1,23 +1,40 @@
 import java.awt.*;
-import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Class: Game
  * Author: Yannis Seimenis
  * Description: Game method is used to store game variables and control game logic.
+ * The game runs headless, it is driven by calling step() for gravity and apply() for player input.
  */
 
 public class Game {
     /**
      * Global variables
      */
+    public static final int DEFAULT_PREVIEW_SIZE = 3;
+    public static final int TICK_MILLIS = 10;
+    public static final int FAST_FALL_DELAY = 50;
+
+    public static final int TICK_NONE = 0;
+    public static final int TICK_MOVED = 1;
+    public static final int TICK_LOCKED = 2;
+
+    //Saved game record: header, queue, randomizer and board at fixed offsets
+    public static final int STATE_MAGIC = 0x54534156;
+    private static final int STATE_HEADER_SIZE = 72;
+    private static final int RANDOMIZER_UNIFORM = 0;
+    private static final int RANDOMIZER_BAG = 1;
+    private static final int RANDOMIZER_HISTORY = 2;
+    private static final int RANDOMIZER_OTHER = 3;
+
     private Block currentBlock;
 
-    private int[] blockQueue;
     private final int[][] previousBlockPos;
+    private final int[][] lastLockedBlockPos;
+    private int lastLockedBlockType = -1;
     private int fallDelay = 1000;
     private int currentHoldBlock = -1;
     private int score = 0;
@@ -25,21 +42,76 @@ public class Game {
     private int clearedLines = 0;
     private int requiredLineClears = 10;
     private int totalLines = 0;
+    private int gravityTicks = 0;
+    private int lastLockTop = 0;
+    private int lastLockBottom = -1;
 
     private boolean heldThisTurn = false;
     private boolean fastFall = false;
     private boolean running = false;
 
-    private final ArrayList<int[]> setBlocks;
+    private final Board board;
+    private final BlockQueue blockQueue;
+    private final Randomizer randomizer;
+
+    private int lastClearedRows = 0;
+    private long seed = 0;
 
     /**
      * Game()
-     * Game constructor, initialises game variables
+     * Game constructor, initialises game variables with a random seed
      */
     public Game() {
-        initBlockQueue();
-        setBlocks = new ArrayList<>();
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Game(long seed)
+     * Game constructor, initialises game variables with a seed so the block sequence can be reproduced
+     * @param seed - Seed for the block sequence
+     */
+    public Game(long seed) {
+        this(seed, Board.WIDTH, Board.HEIGHT, 0);
+    }
+
+    /**
+     * Game(long seed, int width, int visibleHeight, int hiddenRows)
+     * Game constructor, initialises a seeded game on a board of the given size
+     * @param seed - Seed for the block sequence
+     * @param width - Number of columns of the board
+     * @param visibleHeight - Number of rows shown to the player
+     * @param hiddenRows - Number of spawn rows above the visible rows
+     */
+    public Game(long seed, int width, int visibleHeight, int hiddenRows) {
+        this(new UniformRandomizer(seed), DEFAULT_PREVIEW_SIZE, width, visibleHeight, hiddenRows);
+        this.seed = seed;
+    }
+
+    /**
+     * Game(Randomizer randomizer, int previewSize)
+     * Game constructor, initialises game variables
+     * @param randomizer - Randomizer generating the block sequence
+     * @param previewSize - Number of upcoming blocks that can be looked at in the queue
+     */
+    public Game(Randomizer randomizer, int previewSize) {
+        this(randomizer, previewSize, Board.WIDTH, Board.HEIGHT, 0);
+    }
+
+    /**
+     * Game(Randomizer randomizer, int previewSize, int width, int visibleHeight, int hiddenRows)
+     * Game constructor, initialises game variables on a board of the given size
+     * @param randomizer - Randomizer generating the block sequence
+     * @param previewSize - Number of upcoming blocks that can be looked at in the queue
+     * @param width - Number of columns of the board
+     * @param visibleHeight - Number of rows shown to the player
+     * @param hiddenRows - Number of spawn rows above the visible rows
+     */
+    public Game(Randomizer randomizer, int previewSize, int width, int visibleHeight, int hiddenRows) {
+        this.randomizer = randomizer;
+        blockQueue = new BlockQueue(randomizer, previewSize);
+        board = new Board(width, visibleHeight, hiddenRows);
         previousBlockPos = new int[4][2];
+        lastLockedBlockPos = new int[4][2];
     }
 
     /**
@@ -64,39 +136,341 @@ public class Game {
         requiredLineClears = 10;
         totalLines = 0;
         heldThisTurn = false;
-        initBlockQueue();
-        setBlocks.clear();
+        gravityTicks = 0;
+        lastClearedRows = 0;
+        lastLockTop = 0;
+        lastLockBottom = -1;
+        board.clearAll();
         startGame();
     }
 
     /**
-     * initBlockQueue()
-     * Initialises the block queue
+     * writeState(ByteBuffer out)
+     * Writes the complete state of the game as a fixed record of getStateSize() bytes. Values sit at fixed
+     * offsets so saving and restoring are plain copies with nothing to parse
+     * @param out - Buffer to write to, needs getStateSize() bytes remaining
      */
-    private void initBlockQueue() {
-        blockQueue = new int[3];
-        for (int i = 0 ; i < 3; i++) {
-            blockQueue[i] = ThreadLocalRandom.current().nextInt(0, 7);
+    public void writeState(ByteBuffer out) {
+        int start = out.position();
+        out.putInt(STATE_MAGIC);
+        out.putLong(seed);
+        out.put((byte) randomizerKind());
+        out.put((byte) blockQueue.getPreviewSize());
+        out.put((byte) board.getWidth());
+        out.put((byte) board.getHeight());
+        out.put((byte) board.getHiddenRows());
+        out.put((byte) ((running ? 1 : 0) | (fastFall ? 2 : 0) | (heldThisTurn ? 4 : 0) | (currentBlock != null ? 8 : 0)));
+        if (currentBlock != null) {
+            out.put((byte) currentBlock.getBlockType());
+            out.put((byte) currentBlock.getBlockRotation());
+            out.put((byte) currentBlock.getBlockX());
+            out.put((byte) currentBlock.getBlockY());
+        } else {
+            out.putInt(0);
         }
+        out.put((byte) currentHoldBlock);
+        out.put((byte) lastLockedBlockType);
+        putPositions(out, previousBlockPos);
+        putPositions(out, lastLockedBlockPos);
+        //Removed rows are (top << 4) | mask, which needs more than a byte
+        out.putShort((short) lastClearedRows);
+        out.put((byte) lastLockTop);
+        out.put((byte) lastLockBottom);
+        out.putInt(score);
+        out.putInt(level);
+        out.putInt(clearedLines);
+        out.putInt(requiredLineClears);
+        out.putInt(totalLines);
+        out.putInt(fallDelay);
+        out.putInt(gravityTicks);
+        blockQueue.writeState(out);
+        int randomizerStart = out.position();
+        randomizer.writeState(out);
+        //Zero the unused part of the randomizer area so equal games give equal records
+        while (out.position() < randomizerStart + Randomizer.STATE_SIZE) {
+            out.put((byte) 0);
+        }
+        board.writeState(out);
+        assert out.position() - start == getStateSize();
     }
 
     /**
-     * shuffleAndAddToQueue()
-     * Shuffles the queue and adds a new random block
+     * readState(ByteBuffer in)
+     * Replaces the state of the game with a record written by writeState. The game has to be created with
+     * the same kind of randomizer, preview size and board size as the saved one, afterwards it behaves
+     * exactly as the saved game would have
+     * @param in - Buffer to read from, needs getStateSize() bytes remaining
      */
-    public void shuffleAndAddToQueue() {
-        blockQueue[0] = blockQueue[1];
-        blockQueue[1] = blockQueue[2];
-        blockQueue[2] = ThreadLocalRandom.current().nextInt(0, 7);
+    public void readState(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < getStateSize() || in.getInt() != STATE_MAGIC) {
+            throw new IllegalArgumentException("Not a saved game");
+        }
+        long savedSeed = in.getLong();
+        int kind = in.get();
+        int previewSize = in.get();
+        int width = in.get();
+        int height = in.get();
+        int hiddenRows = in.get();
+        if (kind != randomizerKind() || previewSize != blockQueue.getPreviewSize()) {
+            throw new IllegalArgumentException("Saved game uses a different randomizer or preview size");
+        }
+        if (width != board.getWidth() || height != board.getHeight() || hiddenRows != board.getHiddenRows()) {
+            throw new IllegalArgumentException("Saved game is played on a " + width + "x" + height + " board");
+        }
+        seed = savedSeed;
+        int flags = in.get();
+        running = (flags & 1) != 0;
+        fastFall = (flags & 2) != 0;
+        heldThisTurn = (flags & 4) != 0;
+        int blockType = in.get();
+        int blockRotation = in.get();
+        int blockX = in.get();
+        int blockY = in.get();
+        currentBlock = (flags & 8) != 0 ? new Block(blockType, blockRotation, blockX, blockY) : null;
+        currentHoldBlock = in.get();
+        lastLockedBlockType = in.get();
+        getPositions(in, previousBlockPos);
+        getPositions(in, lastLockedBlockPos);
+        lastClearedRows = in.getShort();
+        lastLockTop = in.get();
+        lastLockBottom = in.get();
+        score = in.getInt();
+        level = in.getInt();
+        clearedLines = in.getInt();
+        requiredLineClears = in.getInt();
+        totalLines = in.getInt();
+        fallDelay = in.getInt();
+        gravityTicks = in.getInt();
+        blockQueue.readState(in);
+        int randomizerStart = in.position();
+        randomizer.readState(in);
+        in.position(randomizerStart + Randomizer.STATE_SIZE);
+        board.readState(in);
+        assert in.position() - start == getStateSize();
+    }
+
+    /**
+     * getStateSize()
+     * @return - Returns the size of the record written by writeState, it only depends on the board size
+     */
+    public int getStateSize() {
+        return STATE_HEADER_SIZE + BlockQueue.STATE_SIZE + Randomizer.STATE_SIZE + board.getStateSize();
+    }
+
+    private static void putPositions(ByteBuffer out, int[][] positions) {
+        for (int[] position : positions) {
+            out.put((byte) position[0]);
+            out.put((byte) position[1]);
+        }
+    }
+
+    private static void getPositions(ByteBuffer in, int[][] positions) {
+        for (int[] position : positions) {
+            position[0] = in.get();
+            position[1] = in.get();
+        }
+    }
+
+    /**
+     * randomizerKind()
+     * @return - Returns the code of the randomizer saved with the game, a restore needs the same one
+     */
+    private int randomizerKind() {
+        if (randomizer instanceof UniformRandomizer) {
+            return RANDOMIZER_UNIFORM;
+        } else if (randomizer instanceof BagRandomizer) {
+            return RANDOMIZER_BAG;
+        } else if (randomizer instanceof HistoryRandomizer) {
+            return RANDOMIZER_HISTORY;
+        }
+        return RANDOMIZER_OTHER;
+    }
+
+    /**
+     * tick()
+     * Advances the game by one fixed logic tick of TICK_MILLIS, a gravity step happens once the
+     * fall delay (or the fast fall delay) has passed in whole ticks
+     * @return - Returns TICK_NONE, TICK_MOVED if the block moved down or TICK_LOCKED if it was locked
+     */
+    public int tick() {
+        gravityTicks++;
+        if (gravityTicks < getGravityTicks()) {
+            return TICK_NONE;
+        }
+        gravityTicks = 0;
+        return step() ? TICK_LOCKED : TICK_MOVED;
+    }
+
+    /**
+     * getGravityTicks()
+     * @return - Returns the number of ticks between two gravity steps
+     */
+    public int getGravityTicks() {
+        int delay = fastFall ? Math.min(FAST_FALL_DELAY, fallDelay) : fallDelay;
+        return Math.max(1, delay / TICK_MILLIS);
+    }
+
+    /**
+     * getTicksUntilGravity()
+     * @return - Returns the number of calls to tick() until the next gravity step happens
+     */
+    public int getTicksUntilGravity() {
+        return Math.max(1, getGravityTicks() - gravityTicks);
+    }
+
+    /**
+     * step()
+     * Advances the game by one gravity step, moves the current block down or locks it in place when it
+     * is touching something. Locking clears full rows, updates the score and spawns the next block
+     * @return - Returns true if the current block was locked
+     */
+    public boolean step() {
+        if (!isTouchingBottomOrBlock()) {
+            //Copy array
+            updatePreviousBlockPos();
+            moveBlockDown();
+            return false;
+        }
+        lockCurrentBlock();
+        return true;
+    }
+
+    /**
+     * apply(GameInput input)
+     * Applies a player action to the current block
+     * @param input - Action to apply
+     * @return - Returns true if the action locked the current block
+     */
+    public boolean apply(GameInput input) {
+        switch (input) {
+            case MOVE_LEFT -> moveSide(0);
+            case MOVE_RIGHT -> moveSide(1);
+            case ROTATE -> rotateBlock();
+            case SOFT_DROP -> {
+                if (!isTouchingBottomOrBlock()) {
+                    updatePreviousBlockPos();
+                    moveBlockDown();
+                }
+            }
+            case HOLD -> holdBlock();
+            case HARD_DROP -> {
+                hardDrop();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * hardDrop()
+     * Drops the current block to the bottom and locks it at once
+     */
+    public void hardDrop() {
+        int distance = getDropDistance();
+        if (distance > 0) {
+            updatePreviousBlockPos();
+            currentBlock.moveBlockDown(distance);
+        }
+        //The next block gets a full gravity delay
+        gravityTicks = 0;
+        lockCurrentBlock();
+    }
+
+    /**
+     * getDropDistance()
+     * @return - Returns the number of rows the current block can move down before it touches something
+     */
+    public int getDropDistance() {
+        return board.dropDistance(currentBlock.getBlockType(), currentBlock.getBlockRotation(),
+                currentBlock.getBlockX(), currentBlock.getBlockY());
+    }
+
+    /**
+     * lockCurrentBlock()
+     * Sets the current block, removes full rows and spawns the next block unless the game is over
+     */
+    private void lockCurrentBlock() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        addCurrentToSetBlock();
+        int[][] blockLocation = currentBlock.getBlockLocation();
+        for (int i = 0; i < 4; i++) {
+            lastLockedBlockPos[i][0] = blockLocation[i][0];
+            lastLockedBlockPos[i][1] = blockLocation[i][1];
+        }
+        lastLockedBlockType = currentBlock.getBlockType();
+        lastClearedRows = clearFullRows();
+        if (!checkIfGameOver()) {
+            nextBlock();
+            heldThisTurn = false;
+        }
+        if (Metrics.ENABLED) {
+            Metrics.LOCK_TIME.recordSince(start);
+            Metrics.pieceLocked();
+        }
+    }
+
+    /**
+     * clearFullRows()
+     * Removes the full rows touched by the last locked block, compacts the board and updates the score
+     * @return - Returns the removed rows encoded as described in Board.clearFullRows
+     */
+    public int clearFullRows() {
+        if (lastLockBottom < lastLockTop) {
+            return 0;
+        }
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int clearedRows = board.clearFullRows(lastLockTop, lastLockBottom);
+        if (Metrics.ENABLED) {
+            Metrics.CLEAR_ROWS_TIME.recordSince(start);
+        }
+        int clearedRowCount = Board.getClearedRowCount(clearedRows);
+        if (clearedRowCount > 0) {
+            //Update score (Scoring based on original BPS version of tetris)
+            updateScoreAndLevel(clearedRowCount);
+        }
+        return clearedRows;
+    }
+
+    /**
+     * holdBlock()
+     * Holds the current block and recalls block that is currently on hold
+     * @return - Returns true if the block was held
+     */
+    public boolean holdBlock() {
+        if (heldThisTurn) {
+            return false;
+        }
+        //Copy array so the old block position can be cleared
+        updatePreviousBlockPos();
+        if (currentHoldBlock != -1) {
+            int temp = currentBlock.getBlockType();
+            currentBlock = spawnBlock(currentHoldBlock);
+            currentHoldBlock = temp;
+        } else {
+            currentHoldBlock = currentBlock.getBlockType();
+            nextBlock();
+        }
+        heldThisTurn = true;
+        return true;
     }
 
     /**
      * nextBlock()
-     * Sets the current block to the next block in the queue and shuffles queue
+     * Sets the current block to the next block in the queue
      */
     public void nextBlock() {
-        currentBlock = new Block(blockQueue[0]);
-        shuffleAndAddToQueue();
+        currentBlock = spawnBlock(blockQueue.poll());
+    }
+
+    /**
+     * spawnBlock(int blockType)
+     * @param blockType - Block type represented as int
+     * @return - Returns a new block at the top of the board, centred the same way as on the standard board
+     */
+    private Block spawnBlock(int blockType) {
+        return new Block(blockType, 0, BlockShapes.getSpawnX(blockType) + (board.getWidth() - Board.WIDTH) / 2,
+                BlockShapes.getSpawnY(blockType));
     }
 
     /**
@@ -104,8 +478,10 @@ public class Game {
      * Updates previous block position to the current blocks position
      */
     public void updatePreviousBlockPos() {
+        int[][] blockLocation = currentBlock.getBlockLocation();
         for (int i = 0; i < 4; i++) {
-            previousBlockPos[i] = Arrays.copyOf(currentBlock.getBlockLocation()[i], currentBlock.getBlockLocation()[i].length);
+            previousBlockPos[i][0] = blockLocation[i][0];
+            previousBlockPos[i][1] = blockLocation[i][1];
         }
     }
 
@@ -115,18 +491,8 @@ public class Game {
      * @return - Returns true if block base is touching something
      */
     public boolean isTouchingBottomOrBlock() {
-        for (int i = 0; i < 4; i++) {
-            if (currentBlock.getBlockLocation()[i][1] == 19) {
-                return true;
-            } else {
-                for (int[] setBlock : setBlocks) {
-                    if (Arrays.equals(new int[]{currentBlock.getBlockLocation()[i][0], currentBlock.getBlockLocation()[i][1] + 1}, setBlock)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return !board.fits(currentBlock.getBlockType(), currentBlock.getBlockRotation(),
+                currentBlock.getBlockX(), currentBlock.getBlockY() + 1);
     }
 
     /**
@@ -139,38 +505,31 @@ public class Game {
 
     /**
      * addToSetBlock()
-     * Adds the current position of stationary block to the setBlock arrayList
+     * Adds the current position of stationary block to the board
      */
     public void addCurrentToSetBlock() {
+        int[][] blockLocation = currentBlock.getBlockLocation();
+        lastLockTop = board.getHeight();
+        lastLockBottom = -1;
         for (int i = 0; i < 4; i++) {
-            setBlocks.add(new int[]{currentBlock.getBlockLocation()[i][0], currentBlock.getBlockLocation()[i][1]});
+            board.set(blockLocation[i][0], blockLocation[i][1], currentBlock.getBlockType());
+            lastLockTop = Math.min(lastLockTop, blockLocation[i][1]);
+            lastLockBottom = Math.max(lastLockBottom, blockLocation[i][1]);
         }
     }
 
     /**
      * checkForFullRows()
-     * Checks if there are any full rows to remove
-     * @return - Returns array list of rows y coordinate to remove
+     * Checks if there are any full rows to remove, only the rows touched by the last locked block can be full
+     * @return - Returns array list of rows y coordinate to remove, from bottom to top
      */
     public ArrayList<Integer> checkForFullRows() {
-        ArrayList<Integer> rowsToRemove = new ArrayList<>();
-        for (int i = 19; i > -1; i--) {
-            int count = 0;
-            for (int j = 0; j < 10; j++) {
-                for (int[] setBlock : setBlocks) {
-                    if (Arrays.equals(new int[]{j, i}, setBlock)) {
-                        count++;
-                    }
-                }
-            }
-            if (count == 10) {
+        ArrayList<Integer> rowsToRemove = new ArrayList<>(4);
+        for (int i = lastLockBottom; i >= lastLockTop; i--) {
+            if (board.isRowFull(i)) {
                 rowsToRemove.add(i);
             }
         }
-        if (rowsToRemove.size() > 0) {
-            //Update score (Scoring based on original BPS version of tetris)
-            updateScoreAndLevel(rowsToRemove.size());
-        }
         return rowsToRemove;
     }
 
@@ -212,12 +571,13 @@ public class Game {
 
     /**
      * checkIfGameOver()
-     * Checks if blocks set on top border and ends game if true
+     * Checks if blocks set on top border, or in the hidden rows if the board has any, and ends game if true
      * @return - Returns true if game is over
      */
     public boolean checkIfGameOver() {
+        int limit = Math.max(1, board.getHiddenRows());
         for (int i = 0; i < 4; i++) {
-            if (currentBlock.getBlockLocation()[i][1] == 0) {
+            if (currentBlock.getBlockLocation()[i][1] < limit) {
                 //Game over
                 running = false;
                 return true;
@@ -250,30 +610,13 @@ public class Game {
      * @return - Returns true if block is touching something
      */
     public boolean isTouchingSideOrBlock(int dir) {
-        for (int i = 0; i < 4; i++) {
-            if (dir == 0) {
-                if (currentBlock.getBlockLocation()[i][0] == 0) {
-                    return true;
-                } else {
-                    for (int[] setBlock : setBlocks) {
-                        if (Arrays.equals(new int[]{currentBlock.getBlockLocation()[i][0] - 1, currentBlock.getBlockLocation()[i][1]}, setBlock)) {
-                            return true;
-                        }
-                    }
-                }
-            } else if (dir == 1) {
-                if (currentBlock.getBlockLocation()[i][0] == 9) {
-                    return true;
-                } else {
-                    for (int[] setBlock : setBlocks) {
-                        if (Arrays.equals(new int[]{currentBlock.getBlockLocation()[i][0] + 1, currentBlock.getBlockLocation()[i][1]}, setBlock)) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        int newX = currentBlock.getBlockX();
+        if (dir == 0) {
+            newX--;
+        } else if (dir == 1) {
+            newX++;
         }
-        return false;
+        return !board.fits(currentBlock.getBlockType(), currentBlock.getBlockRotation(), newX, currentBlock.getBlockY());
     }
 
     /**
@@ -281,288 +624,29 @@ public class Game {
      * Sets the new rotation and position of a block, triggered by keyListener
      */
     public void rotateBlock() {
-        int[][] rotateLoc = new int[4][2];
-        int newBlockRotation = 0;
-        switch (currentBlock.getBlockType()) {
-            case 0 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] + 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] - 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] - 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] + 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                }
-            }
-            case 1 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] + 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] + 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                    newBlockRotation = 2;
-                } else if (currentBlock.getBlockRotation() == 2) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] - 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                    newBlockRotation = 3;
-                } else if (currentBlock.getBlockRotation() == 3) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] - 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                }
-            }
-            case 2 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] + 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] - 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                    newBlockRotation = 2;
-                } else if (currentBlock.getBlockRotation() == 2) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] - 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                    newBlockRotation = 3;
-                } else if (currentBlock.getBlockRotation() == 3) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] + 2;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                }
-            }
-            case 4 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0];
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0] + 2;
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1] + 1;
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0];
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0] - 2;
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1] - 1;
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                }
-            }
-            case 5 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] + 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] - 1;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] + 1;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0];
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1];
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                    newBlockRotation = 2;
-                } else if (currentBlock.getBlockRotation() == 2) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0];
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1];
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0];
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1];
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] - 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] - 1;
-                    newBlockRotation = 3;
-                } else if (currentBlock.getBlockRotation() == 3) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] + 1;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] - 1;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1] - 1;
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0] + 1;
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1] + 1;
-                }
-            }
-            case 6 -> {
-                if (currentBlock.getBlockRotation() == 0) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] + 1;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] + 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] + 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1];
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                    newBlockRotation = 1;
-                } else if (currentBlock.getBlockRotation() == 1) {
-                    rotateLoc[0][0] = currentBlock.getBlockLocation()[0][0] - 1;
-                    rotateLoc[0][1] = currentBlock.getBlockLocation()[0][1] - 2;
-                    rotateLoc[1][0] = currentBlock.getBlockLocation()[1][0] - 1;
-                    rotateLoc[1][1] = currentBlock.getBlockLocation()[1][1];
-                    rotateLoc[2][0] = currentBlock.getBlockLocation()[2][0];
-                    rotateLoc[2][1] = currentBlock.getBlockLocation()[2][1];
-                    rotateLoc[3][0] = currentBlock.getBlockLocation()[3][0];
-                    rotateLoc[3][1] = currentBlock.getBlockLocation()[3][1];
-                }
-            }
-        }
-        boolean flag = false;
-        //Check if new position is valid
-        //Check if block is in space of other block
-        for (int[] setBlock : setBlocks) {
-            for (int j = 0; j < 4; j++) {
-                if (Arrays.equals(new int[]{rotateLoc[j][0], rotateLoc[j][1]}, setBlock)) {
-                    flag = true;
-                    break;
-                }
-            }
-        }
-        //Check if block is outside of boundaries
-        for (int j = 0; j < 4; j++) {
-            if (rotateLoc[j][0] < 0 || rotateLoc[j][0] > 9) {
-                flag = true;
-            } else if (rotateLoc[j][1] < 0 || rotateLoc[j][1] > 19) {
-                flag = true;
-            }
-        }
-        //Check if block is square (o)
-        if (currentBlock.getBlockType() == 3) {
-            flag = true;
-        }
-        //If valid update current position to new rotation position
-        if (!flag) {
+        int blockType = currentBlock.getBlockType();
+        int newBlockRotation = (currentBlock.getBlockRotation() + 1) % BlockShapes.getRotationCount(blockType);
+        //Check if block has more than one rotation (o) and if new position is valid
+        if (newBlockRotation != currentBlock.getBlockRotation()
+                && board.fits(blockType, newBlockRotation, currentBlock.getBlockX(), currentBlock.getBlockY())) {
             //Copy array
             updatePreviousBlockPos();
-            currentBlock.setNewLocation(rotateLoc);
             currentBlock.setBlockRotation(newBlockRotation);
         }
     }
 
-    /**
-     * getHighScoreFromFile()
-     * Gets the high score from text file
-     * @return - Returns the high score as int
-     */
-    public int getHighScoreFromFile() {
-        int highScore = -1;
-        try {
-            File highScoreFile = new File("resources/highscore.txt");
-            FileReader fileReader = new FileReader(highScoreFile);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            String buffer;
-            while ((buffer = bufferedReader.readLine()) != null) {
-                highScore = Integer.parseInt(buffer);
-            }
-        } catch (IOException | NumberFormatException e) {
-            e.printStackTrace();
-        }
-        return highScore;
-    }
+    //region Getters
 
-    /**
-     * writeHighScoreToFile(int highScore)
-     * Writes high score to text file
-     * @param highScore - New high score to write to file
-     */
-    public void writeHighScoreToFile(int highScore) {
-        try {
-            File highScoreFile = new File("resources/highscore.txt");
-            FileWriter fileWriter = new FileWriter(highScoreFile);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-            bufferedWriter.write(highScore + "");
-            bufferedWriter.close();
-            fileWriter.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public boolean isHeldThisTurn() {
+        return heldThisTurn;
     }
 
     /**
-     * checkIfHighScore()
-     * Checks if the current score is greater than current high score
-     * if true sets high score to current
+     * hasCurrentBlock()
+     * @return - Returns false until the first block of the game has spawned
      */
-    public void checkIfHighScore() {
-        if (score > getHighScoreFromFile()) {
-            writeHighScoreToFile(score);
-        }
-    }
-
-    //region Getters
-
-    public boolean isHeldThisTurn() {
-        return heldThisTurn;
+    public boolean hasCurrentBlock() {
+        return currentBlock != null;
     }
 
     public int[][] getCurrentBlockPos() {
@@ -578,9 +662,37 @@ public class Game {
     }
 
     public ArrayList<int[]> getSetBlocks() {
+        ArrayList<int[]> setBlocks = new ArrayList<>();
+        for (int i = 0; i < board.getHeight(); i++) {
+            for (int j = 0; j < board.getWidth(); j++) {
+                if (board.isOccupied(j, i)) {
+                    setBlocks.add(new int[]{j, i});
+                }
+            }
+        }
         return setBlocks;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getLastClearedRows() {
+        return lastClearedRows;
+    }
+
+    public int[][] getLastLockedBlockPos() {
+        return lastLockedBlockPos;
+    }
+
+    public int getLastLockedBlockType() {
+        return lastLockedBlockType;
+    }
+
     public int getFallDelay() {
         return fallDelay;
     }
@@ -594,7 +706,19 @@ public class Game {
     }
 
     public int[] getBlockQueue() {
-        return blockQueue;
+        int[] preview = new int[blockQueue.getPreviewSize()];
+        for (int i = 0; i < preview.length; i++) {
+            preview[i] = blockQueue.peek(i);
+        }
+        return preview;
+    }
+
+    public int getQueuedBlock(int index) {
+        return blockQueue.peek(index);
+    }
+
+    public int getPreviewSize() {
+        return blockQueue.getPreviewSize();
     }
 
     public int getScore() {
@@ -617,6 +741,18 @@ public class Game {
         return currentBlock.getBlockType();
     }
 
+    public int getCurrentBlockRotation() {
+        return currentBlock.getBlockRotation();
+    }
+
+    public int getCurrentBlockX() {
+        return currentBlock.getBlockX();
+    }
+
+    public int getCurrentBlockY() {
+        return currentBlock.getBlockY();
+    }
+
     //endregion
 
     //region Setters
@@ -630,7 +766,7 @@ public class Game {
     }
 
     public void newCurrentBlock(int blockType) {
-        currentBlock = new Block(blockType);
+        currentBlock = spawnBlock(blockType);
     }
 
     public void setCurrentHoldBlock(int currentHoldBlock) {
@@ -641,16 +777,16 @@ public class Game {
         this.fastFall = fastFall;
     }
 
-    public void addToSetBlocks(int[] blockToAdd) {
-        setBlocks.add(blockToAdd);
+    public void addToSetBlocks(int[] blockToAdd, int blockType) {
+        board.set(blockToAdd[0], blockToAdd[1], blockType);
     }
 
-    public void removeFromSetBlocks(int index) {
-        setBlocks.remove(index);
+    public void removeFromSetBlocks(int x, int y) {
+        board.clear(x, y);
     }
 
     public void clearSetBlocks() {
-        setBlocks.clear();
+        board.clearAll();
     }
 
     //endregion
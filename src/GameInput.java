@@ -0,0 +1,13 @@
+/**
+ * Enum: GameInput
+ * Author: Yannis Seimenis
+ * Description: Player actions that can be applied to a game, independent of how they were issued.
+ */
+public enum GameInput {
+    MOVE_LEFT,
+    MOVE_RIGHT,
+    ROTATE,
+    SOFT_DROP,
+    HOLD,
+    HARD_DROP
+}
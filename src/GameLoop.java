@@ -0,0 +1,198 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: GameLoop
+ * Author: Yannis Seimenis
+ * Description: Single scheduled loop that advances a game in fixed logic ticks. Elapsed time is measured
+ * with System.nanoTime() and accumulated, so the game always runs the exact number of ticks for the time
+ * passed no matter how the scheduler wakes up. Pausing only changes state, the loop thread lives as long
+ * as the loop. Ticks run while holding the lock of the game, so input applied under the same lock lands
+ * between two ticks and getTickCount() tells exactly which. Player input is drained from the input
+ * controller on the loop thread right before every tick. After every change a snapshot of the game is
+ * published for the renderer, which reads it without taking the lock.
+ */
+public class GameLoop {
+    /**
+     * Listener
+     * Receives the result of every tick that changed the game, called on the loop thread
+     */
+    public interface Listener {
+        void onTick(int tickResult);
+    }
+
+    /**
+     * Global variables
+     */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(Game.TICK_MILLIS);
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final Game game;
+    private final Listener listener;
+    private final InputController inputController;
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> future;
+    private long lastTime;
+    private long accumulator;
+    private long tickCount = 0;
+    private int frozenTicks = 0;
+    private long lastGravityTick;
+    private long lastGravityNanos = 0;
+
+    private volatile boolean paused = false;
+    private volatile GameSnapshot snapshot;
+
+    /**
+     * GameLoop(Game newGame, Listener newListener, InputController newInputController)
+     * GameLoop constructor, creates the loop thread
+     * @param newGame - Game advanced by the loop
+     * @param newListener - Listener notified when a tick moves or locks a block
+     * @param newInputController - Controller whose queued input is applied before every tick
+     */
+    public GameLoop(Game newGame, Listener newListener, InputController newInputController) {
+        game = newGame;
+        listener = newListener;
+        inputController = newInputController;
+        synchronized (game) {
+            publishSnapshot();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-loop");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * start()
+     * Starts scheduling the loop, does nothing if it is already started
+     */
+    public synchronized void start() {
+        if (future == null) {
+            lastTime = System.nanoTime();
+            accumulator = 0;
+            future = executor.scheduleAtFixedRate(this::runFrame, 0, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * stop()
+     * Stops the loop and its thread
+     */
+    public synchronized void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * runFrame()
+     * Runs every tick that is due since the last frame
+     */
+    private void runFrame() {
+        try {
+            long now = System.nanoTime();
+            accumulator += now - lastTime;
+            lastTime = now;
+            //Drop time that could not be caught up, e.g. after the machine was suspended
+            accumulator = Math.min(accumulator, MAX_CATCH_UP_TICKS * TICK_NANOS);
+            while (accumulator >= TICK_NANOS) {
+                accumulator -= TICK_NANOS;
+                synchronized (game) {
+                    //Input keeps flowing while frozen, it lands on the block spawned after the clear
+                    inputController.update(!paused && game.isRunning());
+                    if (frozenTicks > 0) {
+                        frozenTicks--;
+                        lastGravityNanos = 0;
+                    } else if (!paused && game.isRunning()) {
+                        tickCount++;
+                        int tickResult = game.tick();
+                        if (tickResult != Game.TICK_NONE) {
+                            if (Metrics.ENABLED) {
+                                recordGravityJitter();
+                            }
+                            publishSnapshot();
+                            listener.onTick(tickResult);
+                        }
+                    } else {
+                        lastGravityNanos = 0;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            //Keep the loop alive, an exception would cancel all future frames
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * recordGravityJitter()
+     * Records how far the wall-clock time since the last gravity step is from the ticks that passed.
+     * The interval is not measured across pauses and freezes
+     */
+    private void recordGravityJitter() {
+        long now = System.nanoTime();
+        if (lastGravityNanos != 0) {
+            long expected = (tickCount - lastGravityTick) * TICK_NANOS;
+            Metrics.GRAVITY_JITTER.record(Math.abs(now - lastGravityNanos - expected));
+        }
+        lastGravityTick = tickCount;
+        lastGravityNanos = now;
+    }
+
+    /**
+     * freeze(int ticks)
+     * Stops advancing the game for a number of ticks, e.g. while a line clear animation plays.
+     * Must be called while holding the lock of the game
+     * @param ticks - Number of ticks to skip
+     */
+    public void freeze(int ticks) {
+        frozenTicks = Math.max(frozenTicks, ticks);
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * publishSnapshot()
+     * Publishes a snapshot of the current state of the game, called after every tick that changed the game
+     * and by anything else that changes it. Must be called while holding the lock of the game
+     */
+    public void publishSnapshot() {
+        snapshot = GameSnapshot.capture(game, tickCount);
+    }
+
+    /**
+     * publishSnapshot(long inputNanos)
+     * Publishes a snapshot of the current state of the game right after a key press was applied, so the
+     * renderer can measure the latency of the press. Must be called while holding the lock of the game
+     * @param inputNanos - System.nanoTime() of the key press, 0 if not measured
+     */
+    public void publishSnapshot(long inputNanos) {
+        snapshot = GameSnapshot.capture(game, tickCount, inputNanos);
+    }
+
+    /**
+     * getSnapshot()
+     * Can be called from any thread without locking
+     * @return - Returns the latest published snapshot of the game
+     */
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * getTickCount()
+     * Must be called while holding the lock of the game
+     * @return - Returns the number of ticks the game has been advanced by
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+}
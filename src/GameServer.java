@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: GameServer
+ * Author: Yannis Seimenis
+ * Description: Hosts remote games over plain TCP. Every connection gets its own headless game run by a
+ * GameSession on a virtual thread, so thousands of sessions only cost their game state and buffers.
+ * Protocol: the client sends single byte opcodes, the same ones the replay format uses (start, reset,
+ * player inputs and fast fall on/off). The server answers every change of the game with a frame of a 2
+ * byte big-endian length followed by a GameSnapshot delta against the previous frame, the first frame of
+ * a connection is a key frame.
+ * Usage: java GameServer [port] [maxSessions] [bindAddress]
+ */
+public class GameServer {
+    /**
+     * Global variables
+     */
+    public static final int DEFAULT_PORT = 7777;
+    public static final int DEFAULT_MAX_SESSIONS = 20_000;
+
+    private static final int BACKLOG = 4096;
+    private static final long REPORT_INTERVAL_MILLIS = 5000;
+    //Stack size of platform threads when virtual threads are not available
+    private static final long FALLBACK_STACK_SIZE = 256 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final int maxSessions;
+    private final ExecutorService executor = newThreadPerTaskExecutor("game-session");
+    private final Histogram tickLatency = new Histogram("server.tick");
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final AtomicLong acceptedSessions = new AtomicLong();
+    private final AtomicLong rejectedSessions = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * GameServer(InetSocketAddress address, int newMaxSessions)
+     * GameServer constructor, binds the server socket
+     * @param address - Address to listen on, port 0 picks a free port
+     * @param newMaxSessions - Maximum number of concurrent sessions, further connections are closed at once
+     * @throws IOException - If the socket can not be bound
+     */
+    public GameServer(InetSocketAddress address, int newMaxSessions) throws IOException {
+        maxSessions = newMaxSessions;
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address, BACKLOG);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+        InetAddress bindAddress = InetAddress.getByName(args.length > 2 ? args[2] : "0.0.0.0");
+
+        GameServer server = new GameServer(new InetSocketAddress(bindAddress, port), maxSessions);
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+        while (true) {
+            Thread.sleep(REPORT_INTERVAL_MILLIS);
+            System.out.println(server.report());
+        }
+    }
+
+    /**
+     * newThreadPerTaskExecutor(String name)
+     * Creates an executor starting a virtual thread per task, falling back to platform threads with small
+     * stacks when the runtime has no virtual threads (before Java 21)
+     * @param name - Name of the threads
+     * @return - Returns the executor
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, name, FALLBACK_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * start()
+     * Starts accepting connections
+     */
+    public void start() {
+        executor.execute(this::acceptConnections);
+    }
+
+    /**
+     * acceptConnections()
+     * Accepts connections until the server is closed and starts a session for each
+     */
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (sessions.incrementAndGet() > maxSessions) {
+                    sessions.decrementAndGet();
+                    rejectedSessions.incrementAndGet();
+                    socket.close();
+                    continue;
+                }
+                acceptedSessions.incrementAndGet();
+                executor.execute(new GameSession(this, socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * execute(Runnable task)
+     * Runs a task on a thread of its own
+     * @param task - Task to run
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * frameSent(int bytes, long latencyNanos)
+     * Counts a frame sent by a session
+     * @param bytes - Size of the frame
+     * @param latencyNanos - Time from the change being due to the frame being written
+     */
+    void frameSent(int bytes, long latencyNanos) {
+        framesSent.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+        tickLatency.record(latencyNanos);
+    }
+
+    /**
+     * sessionEnded()
+     * Frees the slot of a session that ended
+     */
+    void sessionEnded() {
+        sessions.decrementAndGet();
+    }
+
+    /**
+     * close()
+     * Stops accepting connections, running sessions end when their client disconnects
+     * @throws IOException - If the server socket can not be closed
+     */
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+    }
+
+    /**
+     * report()
+     * @return - Returns a line with the sessions, traffic and tick latency percentiles
+     */
+    public String report() {
+        return String.format(Locale.ROOT,
+                "sessions %d (accepted %d, rejected %d), frames %d, %.1f KiB sent, tick latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us",
+                sessions.get(), acceptedSessions.get(), rejectedSessions.get(), framesSent.get(),
+                bytesSent.get() / 1024.0, tickLatency.getValueAtPercentile(50) / 1e3,
+                tickLatency.getValueAtPercentile(99) / 1e3, tickLatency.getValueAtPercentile(99.9) / 1e3,
+                tickLatency.getMax() / 1e3);
+    }
+
+    //region Getters
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    public Histogram getTickLatency() {
+        return tickLatency;
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    //endregion
+}
@@ -0,0 +1,174 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class: GameSession
+ * Author: Yannis Seimenis
+ * Description: One remote game of the GameServer. A reader thread queues the opcodes of the client on a
+ * lock-free queue and wakes the session thread, which otherwise sleeps until the next gravity step of the
+ * game. On waking it runs every fixed tick that is due, applies the queued input at that tick boundary and
+ * sends a delta frame if anything changed, so an idle session costs nothing between gravity steps.
+ */
+public class GameSession implements Runnable {
+    /**
+     * Global variables
+     */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(Game.TICK_MILLIS);
+    private static final int INPUT_QUEUE_CAPACITY = 64;
+
+    private final GameServer server;
+    private final Socket socket;
+    private final Game game = new Game(ThreadLocalRandom.current().nextLong());
+    private final InputQueue inputs = new InputQueue(INPUT_QUEUE_CAPACITY);
+    //Arrival time of the oldest input not applied yet, 0 if there is none
+    private final AtomicLong pendingInputNanos = new AtomicLong();
+    private final ByteBuffer frame = ByteBuffer.allocate(2 + GameSnapshot.MAX_DELTA_SIZE);
+
+    private volatile Thread sessionThread;
+    private volatile boolean closed = false;
+    private GameSnapshot sent;
+    private long tick = 0;
+
+    /**
+     * GameSession(GameServer newServer, Socket newSocket)
+     * GameSession constructor
+     * @param newServer - Server the session belongs to
+     * @param newSocket - Connection to the client
+     */
+    public GameSession(GameServer newServer, Socket newSocket) {
+        server = newServer;
+        socket = newSocket;
+    }
+
+    /**
+     * run()
+     * Runs the game until the client disconnects
+     */
+    @Override
+    public void run() {
+        sessionThread = Thread.currentThread();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            server.execute(this::readInput);
+            long start = System.nanoTime();
+            sendFrame(out, start);
+            while (!closed) {
+                long now = System.nanoTime();
+                long dueTick = (now - start) / TICK_NANOS;
+                //Time of the oldest change that has to be sent
+                long changedNanos = Long.MAX_VALUE;
+                while (tick < dueTick && game.isRunning()) {
+                    tick++;
+                    if (game.tick() != Game.TICK_NONE) {
+                        changedNanos = Math.min(changedNanos, start + tick * TICK_NANOS);
+                    }
+                }
+                //No ticks pass while the game is not running
+                tick = dueTick;
+                long inputNanos = pendingInputNanos.getAndSet(0);
+                int op;
+                while ((op = inputs.poll()) != InputQueue.EMPTY) {
+                    if (apply(op)) {
+                        changedNanos = Math.min(changedNanos, inputNanos != 0 ? inputNanos : now);
+                    }
+                }
+                if (changedNanos != Long.MAX_VALUE) {
+                    sendFrame(out, changedNanos);
+                }
+                if (game.isRunning()) {
+                    LockSupport.parkNanos(start + (tick + game.getTicksUntilGravity()) * TICK_NANOS - System.nanoTime());
+                } else {
+                    LockSupport.park();
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            //The client disconnected or broke the protocol, the session ends
+        } finally {
+            closed = true;
+            server.sessionEnded();
+        }
+    }
+
+    /**
+     * readInput()
+     * Queues the opcodes sent by the client until it disconnects, runs on a thread of its own
+     */
+    private void readInput() {
+        try {
+            InputStream in = socket.getInputStream();
+            int op;
+            while ((op = in.read()) != -1) {
+                //Input beyond the queue capacity is a flood and is dropped
+                if (inputs.offer(op)) {
+                    pendingInputNanos.compareAndSet(0, System.nanoTime());
+                }
+                LockSupport.unpark(sessionThread);
+            }
+        } catch (IOException e) {
+            //Closed by the session thread or the client
+        } finally {
+            closed = true;
+            LockSupport.unpark(sessionThread);
+        }
+    }
+
+    /**
+     * apply(int op)
+     * Applies an opcode of the client to the game
+     * @param op - Opcode as defined by ReplayRecorder
+     * @return - Returns true if the game may have changed
+     * @throws IllegalArgumentException - If the opcode is unknown
+     */
+    private boolean apply(int op) {
+        switch (op) {
+            case ReplayRecorder.OP_START -> {
+                if (game.isRunning() || game.hasCurrentBlock()) {
+                    return false;
+                }
+                game.startGame();
+            }
+            case ReplayRecorder.OP_RESET -> game.resetGame();
+            case ReplayRecorder.OP_FAST_FALL_ON -> game.setFastFall(true);
+            case ReplayRecorder.OP_FAST_FALL_OFF -> game.setFastFall(false);
+            default -> {
+                if (op < 1 || op > GameInput.values().length) {
+                    throw new IllegalArgumentException("Unknown opcode " + op);
+                }
+                if (!game.isRunning()) {
+                    return false;
+                }
+                game.apply(GameInput.values()[op - 1]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * sendFrame(OutputStream out, long changedNanos)
+     * Sends the changes since the last frame
+     * @param out - Stream of the connection
+     * @param changedNanos - Time the oldest change in the frame was due, for the latency statistics
+     * @throws IOException - If the frame can not be written
+     */
+    private void sendFrame(OutputStream out, long changedNanos) throws IOException {
+        GameSnapshot snapshot = GameSnapshot.capture(game, tick);
+        if (sent != null && snapshot.sameState(sent)) {
+            return;
+        }
+        frame.clear();
+        frame.putShort((short) 0);
+        snapshot.writeDelta(sent, frame);
+        frame.putShort(0, (short) (frame.position() - 2));
+        out.write(frame.array(), 0, frame.position());
+        sent = snapshot;
+        server.frameSent(frame.position(), System.nanoTime() - changedNanos);
+    }
+}
@@ -0,0 +1,431 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Class: GameSnapshot
+ * Author: Yannis Seimenis
+ * Description: Immutable copy of everything the renderer shows: the settled cells, the current block and
+ * its landing distance, the queue, the hold block and the score. The game loop captures a new snapshot
+ * while holding the lock of the game whenever the game changes and publishes it through a volatile
+ * reference, so the UI can read a consistent state from any thread without locking the game.
+ * Snapshots can be sent over the network as deltas against the previously sent snapshot, only the rows
+ * and parts that changed are written. A delta against null is a key frame holding the whole state.
+ * A snapshot published for a key press carries the time of the press so the renderer can measure the
+ * latency up to the frame that shows it, the press time is local and never sent.
+ */
+public final class GameSnapshot {
+    /**
+     * Global variables
+     */
+    //Largest delta of a standard board, the parts other than the rows take at most MAX_FIXED_SIZE bytes with a
+    //queue of BlockQueue.MAX_SAVED_BLOCKS, the largest preview
+    private static final int MAX_FIXED_SIZE = 136;
+    public static final int MAX_DELTA_SIZE = maxDeltaSize(Board.WIDTH, Board.HEIGHT);
+
+    private static final int ROWS_CHANGED = 1;
+    private static final int BLOCK_CHANGED = 1 << 1;
+    private static final int QUEUE_CHANGED = 1 << 2;
+    private static final int HOLD_CHANGED = 1 << 3;
+    private static final int SCORE_CHANGED = 1 << 4;
+    private static final int RUNNING_CHANGED = 1 << 5;
+
+    private final long tick;
+    private final boolean running;
+    private final int width;
+    private final int height;
+    private final int hiddenRows;
+    private final byte[] cells;
+    //Type of the current block, -1 before the first block has spawned
+    private final int blockType;
+    //X and y coordinates of the four cells of the current block, interleaved
+    private final int[] blockCells;
+    private final int dropDistance;
+    private final int[] queue;
+    private final int holdBlock;
+    private final int score;
+    private final int level;
+    private final int lines;
+    //System.nanoTime() of the key press the snapshot was published for, 0 if none
+    private final long inputNanos;
+
+    /**
+     * GameSnapshot(Game game, long newTick, long newInputNanos)
+     * GameSnapshot constructor, copies the state of a game. Must be called while holding the lock of the game
+     * @param game - Game to copy
+     * @param newTick - Tick the game was captured at
+     * @param newInputNanos - Time of the key press the snapshot is captured for, 0 if none
+     */
+    private GameSnapshot(Game game, long newTick, long newInputNanos) {
+        tick = newTick;
+        inputNanos = newInputNanos;
+        running = game.isRunning();
+        Board board = game.getBoard();
+        width = board.getWidth();
+        height = board.getHeight();
+        hiddenRows = board.getHiddenRows();
+        cells = board.copyCellTypes();
+        if (game.hasCurrentBlock()) {
+            blockType = game.getCurrentBlockType();
+            int[][] blockLocation = game.getCurrentBlockPos();
+            blockCells = new int[blockLocation.length * 2];
+            for (int i = 0; i < blockLocation.length; i++) {
+                blockCells[i * 2] = blockLocation[i][0];
+                blockCells[i * 2 + 1] = blockLocation[i][1];
+            }
+            dropDistance = game.getDropDistance();
+        } else {
+            blockType = -1;
+            blockCells = new int[0];
+            dropDistance = 0;
+        }
+        queue = game.getBlockQueue();
+        holdBlock = game.getCurrentHoldBlock();
+        score = game.getScore();
+        level = game.getLevel();
+        lines = game.getTotalLines();
+    }
+
+    /**
+     * GameSnapshot(...)
+     * GameSnapshot constructor, used when reading a delta
+     */
+    private GameSnapshot(long newTick, boolean newRunning, int newWidth, int newHeight, int newHiddenRows,
+                         byte[] newCells, int newBlockType, int[] newBlockCells, int newDropDistance, int[] newQueue,
+                         int newHoldBlock, int newScore, int newLevel, int newLines) {
+        tick = newTick;
+        running = newRunning;
+        width = newWidth;
+        height = newHeight;
+        hiddenRows = newHiddenRows;
+        cells = newCells;
+        blockType = newBlockType;
+        blockCells = newBlockCells;
+        dropDistance = newDropDistance;
+        queue = newQueue;
+        holdBlock = newHoldBlock;
+        score = newScore;
+        level = newLevel;
+        lines = newLines;
+        inputNanos = 0;
+    }
+
+    /**
+     * capture(Game game, long tick)
+     * Must be called while holding the lock of the game
+     * @param game - Game to copy
+     * @param tick - Tick the game was captured at
+     * @return - Returns a snapshot of the game
+     */
+    public static GameSnapshot capture(Game game, long tick) {
+        return new GameSnapshot(game, tick, 0);
+    }
+
+    /**
+     * capture(Game game, long tick, long inputNanos)
+     * Must be called while holding the lock of the game
+     * @param game - Game to copy
+     * @param tick - Tick the game was captured at
+     * @param inputNanos - System.nanoTime() of the key press whose input was just applied, 0 if none
+     * @return - Returns a snapshot of the game carrying the time of the key press
+     */
+    public static GameSnapshot capture(Game game, long tick, long inputNanos) {
+        return new GameSnapshot(game, tick, inputNanos);
+    }
+
+    /**
+     * maxDeltaSize(int width, int height)
+     * @param width - Number of columns of the board
+     * @param height - Number of rows of the board including the hidden rows
+     * @return - Returns the largest delta of a board of this size
+     */
+    public static int maxDeltaSize(int width, int height) {
+        return MAX_FIXED_SIZE + height * (1 + (width + 1) / 2);
+    }
+
+    /**
+     * writeDelta(GameSnapshot previous, ByteBuffer out)
+     * Writes the changes from a previous snapshot to this one, at most getMaxDeltaSize() bytes. The delta
+     * starts with the tick and a byte of flags telling which parts follow, a key frame then has the width,
+     * height and hidden rows of the board. The parts are the changed rows as a count
+     * followed by the row index and two 4 bit cells per byte, the current block as its type, its cells
+     * and its drop distance, the queue, the hold block, the score, level and lines as varints, and the
+     * running flag
+     * @param previous - Snapshot the receiver already has, null to write a key frame
+     * @param out - Buffer to write to
+     */
+    public void writeDelta(GameSnapshot previous, ByteBuffer out) {
+        int flags = 0;
+        int changedRows = 0;
+        for (int y = 0; y < height; y++) {
+            if (previous == null || !Arrays.equals(cells, y * width, (y + 1) * width,
+                    previous.cells, y * width, (y + 1) * width)) {
+                changedRows++;
+            }
+        }
+        if (changedRows > 0) {
+            flags |= ROWS_CHANGED;
+        }
+        if (previous == null || blockType != previous.blockType || dropDistance != previous.dropDistance
+                || !Arrays.equals(blockCells, previous.blockCells)) {
+            flags |= BLOCK_CHANGED;
+        }
+        if (previous == null || !Arrays.equals(queue, previous.queue)) {
+            flags |= QUEUE_CHANGED;
+        }
+        if (previous == null || holdBlock != previous.holdBlock) {
+            flags |= HOLD_CHANGED;
+        }
+        if (previous == null || score != previous.score || level != previous.level || lines != previous.lines) {
+            flags |= SCORE_CHANGED;
+        }
+        if (previous == null || running != previous.running) {
+            flags |= RUNNING_CHANGED;
+        }
+
+        putVarLong(out, tick);
+        out.put((byte) flags);
+        if (previous == null) {
+            out.put((byte) width);
+            out.put((byte) height);
+            out.put((byte) hiddenRows);
+        }
+        if ((flags & ROWS_CHANGED) != 0) {
+            out.put((byte) changedRows);
+            for (int y = 0; y < height; y++) {
+                int from = y * width;
+                if (previous == null || !Arrays.equals(cells, from, from + width, previous.cells, from, from + width)) {
+                    out.put((byte) y);
+                    //Block types 0 to 6 are stored plus one so an empty cell is 0
+                    for (int x = 0; x < width; x += 2) {
+                        int second = x + 1 < width ? cells[from + x + 1] + 1 : 0;
+                        out.put((byte) ((cells[from + x] + 1) | second << 4));
+                    }
+                }
+            }
+        }
+        if ((flags & BLOCK_CHANGED) != 0) {
+            out.put((byte) blockType);
+            out.put((byte) (blockCells.length / 2));
+            for (int value : blockCells) {
+                out.put((byte) value);
+            }
+            out.put((byte) dropDistance);
+        }
+        if ((flags & QUEUE_CHANGED) != 0) {
+            out.put((byte) queue.length);
+            for (int block : queue) {
+                out.put((byte) block);
+            }
+        }
+        if ((flags & HOLD_CHANGED) != 0) {
+            out.put((byte) holdBlock);
+        }
+        if ((flags & SCORE_CHANGED) != 0) {
+            putVarLong(out, score);
+            putVarLong(out, level);
+            putVarLong(out, lines);
+        }
+        if ((flags & RUNNING_CHANGED) != 0) {
+            out.put((byte) (running ? 1 : 0));
+        }
+    }
+
+    /**
+     * readDelta(GameSnapshot previous, ByteBuffer in)
+     * Reads a delta written by writeDelta
+     * @param previous - Snapshot the delta was written against, null for a key frame
+     * @param in - Buffer to read from
+     * @return - Returns the snapshot the delta was written from
+     * @throws IllegalArgumentException - If the delta is damaged or needs a previous snapshot
+     */
+    public static GameSnapshot readDelta(GameSnapshot previous, ByteBuffer in) {
+        try {
+            long tick = getVarLong(in);
+            int flags = in.get();
+            if (previous == null && flags != (ROWS_CHANGED | BLOCK_CHANGED | QUEUE_CHANGED | HOLD_CHANGED
+                    | SCORE_CHANGED | RUNNING_CHANGED)) {
+                throw new IllegalArgumentException("Delta is not a key frame");
+            }
+            int width = previous == null ? in.get() : previous.width;
+            int height = previous == null ? in.get() : previous.height;
+            int hiddenRows = previous == null ? in.get() : previous.hiddenRows;
+            byte[] cells = previous == null ? new byte[width * height] : previous.cells;
+            if ((flags & ROWS_CHANGED) != 0) {
+                cells = cells.clone();
+                int changedRows = in.get();
+                for (int i = 0; i < changedRows; i++) {
+                    int from = in.get() * width;
+                    for (int x = 0; x < width; x += 2) {
+                        int packed = in.get();
+                        cells[from + x] = (byte) ((packed & 0xF) - 1);
+                        if (x + 1 < width) {
+                            cells[from + x + 1] = (byte) ((packed >> 4 & 0xF) - 1);
+                        }
+                    }
+                }
+            }
+            int blockType = previous == null ? -1 : previous.blockType;
+            int[] blockCells = previous == null ? null : previous.blockCells;
+            int dropDistance = previous == null ? 0 : previous.dropDistance;
+            if ((flags & BLOCK_CHANGED) != 0) {
+                blockType = in.get();
+                blockCells = new int[in.get() * 2];
+                for (int i = 0; i < blockCells.length; i++) {
+                    blockCells[i] = in.get();
+                }
+                dropDistance = in.get();
+            }
+            int[] queue = previous == null ? null : previous.queue;
+            if ((flags & QUEUE_CHANGED) != 0) {
+                queue = new int[in.get()];
+                for (int i = 0; i < queue.length; i++) {
+                    queue[i] = in.get();
+                }
+            }
+            int holdBlock = (flags & HOLD_CHANGED) != 0 ? in.get() : previous.holdBlock;
+            int score = previous == null ? 0 : previous.score;
+            int level = previous == null ? 0 : previous.level;
+            int lines = previous == null ? 0 : previous.lines;
+            if ((flags & SCORE_CHANGED) != 0) {
+                score = (int) getVarLong(in);
+                level = (int) getVarLong(in);
+                lines = (int) getVarLong(in);
+            }
+            boolean running = (flags & RUNNING_CHANGED) != 0 ? in.get() != 0 : previous.running;
+            return new GameSnapshot(tick, running, width, height, hiddenRows, cells, blockType, blockCells, dropDistance, queue, holdBlock,
+                    score, level, lines);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Damaged delta", e);
+        }
+    }
+
+    private static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    /**
+     * sameState(GameSnapshot other)
+     * @param other - Snapshot to compare with
+     * @return - Returns true if both snapshots show the same state, the tick is not compared
+     */
+    public boolean sameState(GameSnapshot other) {
+        return running == other.running && width == other.width && height == other.height
+                && hiddenRows == other.hiddenRows && blockType == other.blockType && dropDistance == other.dropDistance
+                && holdBlock == other.holdBlock && score == other.score && level == other.level
+                && lines == other.lines && Arrays.equals(cells, other.cells)
+                && Arrays.equals(blockCells, other.blockCells) && Arrays.equals(queue, other.queue);
+    }
+
+    /**
+     * getCellType(int x, int y)
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @return - Returns the block type of a settled cell, Board.EMPTY if the cell is empty
+     */
+    public int getCellType(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * getBlockCells()
+     * @return - Returns a new array with the x and y coordinates of the cells of the current block, empty
+     * before the first block has spawned
+     */
+    public int[][] getBlockCells() {
+        int[][] blockLocation = new int[blockCells.length / 2][];
+        for (int i = 0; i < blockLocation.length; i++) {
+            blockLocation[i] = new int[]{blockCells[i * 2], blockCells[i * 2 + 1]};
+        }
+        return blockLocation;
+    }
+
+    /**
+     * getQueuedBlock(int index)
+     * @param index - Position in the queue, 0 is the next block
+     * @return - Returns the type of the queued block
+     */
+    public int getQueuedBlock(int index) {
+        return queue[index];
+    }
+
+    //region Getters
+
+    public long getTick() {
+        return tick;
+    }
+
+    public long getInputNanos() {
+        return inputNanos;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * getHeight()
+     * @return - Returns the number of rows including the hidden rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public int getHiddenRows() {
+        return hiddenRows;
+    }
+
+    public int getMaxDeltaSize() {
+        return maxDeltaSize(width, height);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getBlockType() {
+        return blockType;
+    }
+
+    public int getDropDistance() {
+        return dropDistance;
+    }
+
+    public int getPreviewSize() {
+        return queue.length;
+    }
+
+    public int getHoldBlock() {
+        return holdBlock;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+
+    //endregion
+}
@@ -0,0 +1,225 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Class: GridCanvas
+ * Author: Yannis Seimenis
+ * Description: Single component that paints the game grid from an array of cell colors. The falling block
+ * and its ghost, the outline of where it would land, are drawn on top. Changing a cell only repaints the
+ * rectangle of that cell instead of going through a component per cell. Cells take board coordinates,
+ * cells in the hidden rows above the grid are kept but not shown. Only used on the Event Dispatch Thread.
+ */
+public class GridCanvas extends JComponent {
+    /**
+     * Global variables
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final int columns;
+    private final int rows;
+    private final int hiddenRows;
+    private final int cellSize;
+    private final Color[][] cells;
+    private final int[][] pieceCells = new int[4][2];
+    private Color pieceColor;
+    private final int[][] ghostCells = new int[4][2];
+    private Color ghostColor;
+    //Time of the key press first shown by the next paint, 0 if none
+    private long inputNanos = 0;
+
+    /**
+     * GridCanvas(int newColumns, int newRows, int newHiddenRows, int newCellSize)
+     * GridCanvas constructor, initialises an empty grid
+     * @param newColumns - Number of columns in the grid
+     * @param newRows - Number of visible rows in the grid
+     * @param newHiddenRows - Number of rows above the visible rows that are not shown
+     * @param newCellSize - Width and height of a cell in pixels
+     */
+    public GridCanvas(int newColumns, int newRows, int newHiddenRows, int newCellSize) {
+        columns = newColumns;
+        rows = newRows;
+        hiddenRows = newHiddenRows;
+        cellSize = newCellSize;
+        cells = new Color[newColumns][newHiddenRows + newRows];
+        setOpaque(false);
+        setPreferredSize(new Dimension(newColumns * newCellSize, newRows * newCellSize));
+    }
+
+    /**
+     * setCell(int x, int y, Color color)
+     * Sets the color of a cell and repaints it if it changed
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @param color - New color of the cell, null for an empty cell
+     */
+    public void setCell(int x, int y, Color color) {
+        if (cells[x][y] != color) {
+            cells[x][y] = color;
+            repaint(x * cellSize, (y - hiddenRows) * cellSize, cellSize, cellSize);
+        }
+    }
+
+    /**
+     * clearCell(int x, int y)
+     * Empties a cell
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     */
+    public void clearCell(int x, int y) {
+        setCell(x, y, null);
+    }
+
+    /**
+     * getCell(int x, int y)
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @return - Returns the color of the cell, null if empty
+     */
+    public Color getCell(int x, int y) {
+        return cells[x][y];
+    }
+
+    /**
+     * setPiece(int[][] newPieceCells, Color newPieceColor)
+     * Draws the falling block on top of the grid, repainting its previous and new cells
+     * @param newPieceCells - Cell locations of the block
+     * @param newPieceColor - Color of the block
+     */
+    public void setPiece(int[][] newPieceCells, Color newPieceColor) {
+        repaintPiece();
+        for (int i = 0; i < 4; i++) {
+            pieceCells[i][0] = newPieceCells[i][0];
+            pieceCells[i][1] = newPieceCells[i][1];
+        }
+        pieceColor = newPieceColor;
+        repaintPiece();
+    }
+
+    /**
+     * hidePiece()
+     * Stops drawing the falling block
+     */
+    public void hidePiece() {
+        repaintCells(pieceCells, pieceColor);
+        repaintCells(ghostCells, ghostColor);
+        pieceColor = null;
+        ghostColor = null;
+    }
+
+    /**
+     * setGhost(int[][] newPieceCells, int dropDistance, Color newGhostColor)
+     * Outlines where the falling block would land, repainting the previous and new ghost cells
+     * @param newPieceCells - Cell locations of the falling block
+     * @param dropDistance - Number of rows the block can move down
+     * @param newGhostColor - Color of the outline
+     */
+    public void setGhost(int[][] newPieceCells, int dropDistance, Color newGhostColor) {
+        repaintCells(ghostCells, ghostColor);
+        for (int i = 0; i < 4; i++) {
+            ghostCells[i][0] = newPieceCells[i][0];
+            ghostCells[i][1] = newPieceCells[i][1] + dropDistance;
+        }
+        ghostColor = newGhostColor;
+        repaintCells(ghostCells, ghostColor);
+    }
+
+    /**
+     * repaintPiece()
+     * Repaints the cells currently covered by the falling block
+     */
+    private void repaintPiece() {
+        repaintCells(pieceCells, pieceColor);
+    }
+
+    /**
+     * repaintCells(int[][] cellsToRepaint, Color color)
+     * Repaints the cells of a block overlay if it is shown
+     * @param cellsToRepaint - Cell locations of the overlay
+     * @param color - Color of the overlay, null if it is hidden
+     */
+    private void repaintCells(int[][] cellsToRepaint, Color color) {
+        if (color != null) {
+            for (int i = 0; i < 4; i++) {
+                repaint(cellsToRepaint[i][0] * cellSize, (cellsToRepaint[i][1] - hiddenRows) * cellSize, cellSize, cellSize);
+            }
+        }
+    }
+
+    /**
+     * clearAll()
+     * Empties every cell
+     */
+    public void clearAll() {
+        for (Color[] column : cells) {
+            Arrays.fill(column, null);
+        }
+        pieceColor = null;
+        ghostColor = null;
+        repaint();
+    }
+
+    /**
+     * setInputNanos(long newInputNanos)
+     * Marks that the next paint shows the input of a key press for the first time, a press that is still
+     * waiting for its paint is kept
+     * @param newInputNanos - System.nanoTime() of the key press, 0 if none
+     */
+    public void setInputNanos(long newInputNanos) {
+        if (inputNanos == 0) {
+            inputNanos = newInputNanos;
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        //Only paint cells inside the dirty rectangle
+        int minX = Math.max(0, clip.x / cellSize);
+        int maxX = Math.min(columns - 1, (clip.x + clip.width - 1) / cellSize);
+        int minY = hiddenRows + Math.max(0, clip.y / cellSize);
+        int maxY = hiddenRows + Math.min(rows - 1, (clip.y + clip.height - 1) / cellSize);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                if (cells[x][y] != null) {
+                    paintCell(g, x, y, cells[x][y]);
+                }
+            }
+        }
+        if (ghostColor != null) {
+            g.setColor(ghostColor);
+            for (int i = 0; i < 4; i++) {
+                g.drawRect(ghostCells[i][0] * cellSize + 1, (ghostCells[i][1] - hiddenRows) * cellSize + 1, cellSize - 3, cellSize - 3);
+            }
+        }
+        if (pieceColor != null) {
+            for (int i = 0; i < 4; i++) {
+                paintCell(g, pieceCells[i][0], pieceCells[i][1], pieceColor);
+            }
+        }
+        if (Metrics.ENABLED) {
+            Metrics.frameRendered(start, inputNanos);
+            inputNanos = 0;
+        }
+    }
+
+    /**
+     * paintCell(Graphics g, int x, int y, Color color)
+     * Paints a single filled cell with a black border
+     * @param g - Graphics to paint with
+     * @param x - X coordinate of the cell
+     * @param y - Y coordinate of the cell
+     * @param color - Fill color of the cell
+     */
+    private void paintCell(Graphics g, int x, int y, Color color) {
+        int top = (y - hiddenRows) * cellSize;
+        g.setColor(color);
+        g.fillRect(x * cellSize, top, cellSize, cellSize);
+        g.setColor(Color.BLACK);
+        g.drawRect(x * cellSize, top, cellSize - 1, cellSize - 1);
+    }
+}
@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: HighScoreStore
+ * Author: Yannis Seimenis
+ * Description: Keeps the best scores in memory, loaded once from the high score file. New scores are
+ * saved on a background thread by writing a temporary file and renaming it over the old one, so the file
+ * always holds either the old or the new list even if the game is killed while saving.
+ * File format: one entry per line as "score lines level date", best first. A file holding only a score
+ * per line (the old format) is read as well.
+ */
+public class HighScoreStore {
+    /**
+     * Global variables
+     */
+    public static final int DEFAULT_CAPACITY = 10;
+
+    private final Path path;
+    private final int capacity;
+    private final List<Entry> entries = new ArrayList<>();
+    private final ExecutorService writer;
+
+    /**
+     * HighScoreStore(Path newPath, int newCapacity)
+     * HighScoreStore constructor, use load() to read the stored scores
+     * @param newPath - High score file
+     * @param newCapacity - Number of scores kept
+     */
+    private HighScoreStore(Path newPath, int newCapacity) {
+        path = newPath;
+        capacity = newCapacity;
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "high-score-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * load(Path path, int capacity)
+     * Reads the high score file, a missing or unreadable file gives an empty list
+     * @param path - High score file
+     * @param capacity - Number of scores kept
+     * @return - Returns the store
+     */
+    public static HighScoreStore load(Path path, int capacity) {
+        HighScoreStore store = new HighScoreStore(path, capacity);
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                Entry entry = Entry.parse(line);
+                if (entry != null && entry.getScore() > 0) {
+                    store.entries.add(entry);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            //No scores yet
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        store.entries.sort(null);
+        store.trim();
+        return store;
+    }
+
+    /**
+     * submit(int score, int lines, int level)
+     * Adds the result of a game if it makes the list and saves the list in the background
+     * @param score - Score of the game
+     * @param lines - Lines cleared in the game
+     * @param level - Level reached in the game
+     * @return - Returns the rank of the score starting at 0, -1 if it did not make the list
+     */
+    public synchronized int submit(int score, int lines, int level) {
+        if (score <= 0) {
+            return -1;
+        }
+        //Place after equal scores so the older entry keeps its rank
+        int rank = 0;
+        while (rank < entries.size() && entries.get(rank).getScore() >= score) {
+            rank++;
+        }
+        if (rank >= capacity) {
+            return -1;
+        }
+        entries.add(rank, new Entry(score, lines, level, LocalDate.now()));
+        trim();
+        String contents = format();
+        writer.execute(() -> save(contents));
+        return rank;
+    }
+
+    /**
+     * close()
+     * Waits for pending saves to finish
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * trim()
+     * Drops the entries that do not fit in the list
+     */
+    private void trim() {
+        while (entries.size() > capacity) {
+            entries.remove(entries.size() - 1);
+        }
+    }
+
+    /**
+     * format()
+     * @return - Returns the contents of the high score file
+     */
+    private String format() {
+        StringBuilder builder = new StringBuilder();
+        for (Entry entry : entries) {
+            builder.append(entry).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * save(String contents)
+     * Replaces the high score file atomically
+     * @param contents - Contents of the high score file
+     */
+    private void save(String contents) {
+        try {
+            AtomicFile.write(path, contents.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    //region Getters
+
+    /**
+     * getHighScore()
+     * @return - Returns the best score, 0 if there is none
+     */
+    public synchronized int getHighScore() {
+        return entries.isEmpty() ? 0 : entries.get(0).getScore();
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    //endregion
+
+    /**
+     * Class: Entry
+     * Description: Result of a single game, ordered best score first
+     */
+    public static final class Entry implements Comparable<Entry> {
+        private final int score;
+        private final int lines;
+        private final int level;
+        private final LocalDate date;
+
+        public Entry(int newScore, int newLines, int newLevel, LocalDate newDate) {
+            score = newScore;
+            lines = newLines;
+            level = newLevel;
+            date = newDate;
+        }
+
+        /**
+         * parse(String line)
+         * @param line - Line of the high score file
+         * @return - Returns the entry, null if the line can not be read
+         */
+        private static Entry parse(String line) {
+            String[] parts = line.trim().split("\\s+");
+            try {
+                if (parts.length == 1) {
+                    return new Entry(Integer.parseInt(parts[0]), 0, 0, null);
+                } else if (parts.length == 4) {
+                    LocalDate date = parts[3].equals("-") ? null : LocalDate.parse(parts[3]);
+                    return new Entry(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                            Integer.parseInt(parts[2]), date);
+                }
+            } catch (RuntimeException e) {
+                //Skip damaged lines
+            }
+            return null;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(other.score, score);
+        }
+
+        @Override
+        public String toString() {
+            return score + " " + lines + " " + level + " " + (date == null ? "-" : date.toString());
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLines() {
+            return lines;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+    }
+}
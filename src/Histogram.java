@@ -0,0 +1,143 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class: Histogram
+ * Author: Yannis Seimenis
+ * Description: Lock-free histogram of non-negative long values (nanoseconds for timings) with log-linear
+ * buckets in the style of HdrHistogram. Values below 32 get a bucket each, above that every power of two
+ * is split into 16 buckets, so any value is kept within about 3% using under a thousand counters.
+ * Recording is a few atomic increments and can be done from any thread.
+ */
+public class Histogram {
+    /**
+     * Global variables
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Histogram(String newName)
+     * Histogram constructor
+     * @param newName - Name the histogram is published under
+     */
+    public Histogram(String newName) {
+        name = newName;
+    }
+
+    /**
+     * record(long value)
+     * Adds a value to the histogram, negative values are counted as 0
+     * @param value - Value to add
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * recordSince(long startNanos)
+     * Adds the time passed since a System.nanoTime() reading
+     * @param startNanos - Start of the measured interval
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * bucket(long value)
+     * @param value - Non-negative value
+     * @return - Returns the index of the bucket holding the value
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        //Keep the top SUB_BUCKET_BITS bits of the value, the leading one is implied by the shift
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * bucketValue(int bucket)
+     * @param bucket - Index of a bucket
+     * @return - Returns the middle of the range of values in the bucket
+     */
+    private static long bucketValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long low = (long) ((bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+        return low + (1L << shift) / 2;
+    }
+
+    /**
+     * getValueAtPercentile(double percentile)
+     * @param percentile - Percentile between 0 and 100
+     * @return - Returns the value at the percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * reset()
+     * Forgets every recorded value, values recorded at the same time may be partly kept
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    //region Getters
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMean() {
+        long total = count.get();
+        return total == 0 ? 0 : (double) sum.get() / total;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    //endregion
+}
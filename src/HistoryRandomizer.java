@@ -0,0 +1,91 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Class: HistoryRandomizer
+ * Author: Yannis Seimenis
+ * Description: History based randomizer, rerolls a block a limited number of times while it matches one
+ * of the last dealt blocks. The history starts filled with S and Z blocks so the first block is never one of them.
+ */
+public class HistoryRandomizer implements Randomizer {
+    /**
+     * Global variables
+     */
+    public static final int DEFAULT_HISTORY_SIZE = 4;
+    public static final int DEFAULT_ROLLS = 4;
+
+    private final SeededRandom random;
+    private final int[] history;
+    private final int rolls;
+    private int historyIndex = 0;
+
+    /**
+     * HistoryRandomizer(long seed)
+     * HistoryRandomizer constructor using the default history size and number of rolls
+     * @param seed - Seed of the sequence
+     */
+    public HistoryRandomizer(long seed) {
+        this(seed, DEFAULT_HISTORY_SIZE, DEFAULT_ROLLS);
+    }
+
+    /**
+     * HistoryRandomizer(long seed, int historySize, int newRolls)
+     * HistoryRandomizer constructor
+     * @param seed - Seed of the sequence
+     * @param historySize - Number of previous blocks remembered
+     * @param newRolls - Maximum number of rolls for a single block
+     */
+    public HistoryRandomizer(long seed, int historySize, int newRolls) {
+        if (historySize < 1 || historySize > STATE_SIZE - 9) {
+            throw new IllegalArgumentException("History size must be between 1 and " + (STATE_SIZE - 9));
+        }
+        random = new SeededRandom(seed);
+        history = new int[historySize];
+        rolls = newRolls;
+        for (int i = 0; i < historySize; i++) {
+            history[i] = i % 2 == 0 ? 4 : 6;
+        }
+    }
+
+    @Override
+    public int nextBlock() {
+        int block = random.nextInt(BlockShapes.BLOCK_TYPES);
+        for (int i = 1; i < rolls && isInHistory(block); i++) {
+            block = random.nextInt(BlockShapes.BLOCK_TYPES);
+        }
+        history[historyIndex] = block;
+        historyIndex = (historyIndex + 1) % history.length;
+        return block;
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+        out.put((byte) historyIndex);
+        for (int block : history) {
+            out.put((byte) block);
+        }
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        random.setState(in.getLong());
+        historyIndex = in.get();
+        for (int i = 0; i < history.length; i++) {
+            history[i] = in.get();
+        }
+    }
+
+    /**
+     * isInHistory(int block)
+     * @param block - Block type represented as int
+     * @return - Returns true if the block is one of the last dealt blocks
+     */
+    private boolean isInHistory(int block) {
+        for (int previous : history) {
+            if (previous == block) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
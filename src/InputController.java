@@ -0,0 +1,192 @@
+/**
+ * Class: InputController
+ * Author: Yannis Seimenis
+ * Description: Turns key presses and releases into game inputs at tick boundaries. Key events are put on
+ * a lock-free queue by the UI thread and drained by the game loop before every tick, so inputs never race
+ * with gravity and always land between two ticks. Held left and right keys repeat by delayed auto shift
+ * (DAS) and auto repeat rate (ARR) counted in engine ticks, independent of the key repeat of the system.
+ * The most recently pressed direction wins while both are held. A press can carry the time it happened at,
+ * which is handed to the listener with the input it caused and dropped if it caused none.
+ */
+public class InputController {
+    /**
+     * Listener
+     * Applies the inputs produced by the controller, called on the game loop thread while holding the lock
+     * of the game. The press time is 0 for inputs repeated by auto shift and for unstamped presses
+     */
+    public interface Listener {
+        void onInput(GameInput input, long pressNanos);
+
+        void onFastFall(boolean fastFall);
+    }
+
+    /**
+     * Global variables
+     */
+    public static final int PRESS_LEFT = 0;
+    public static final int RELEASE_LEFT = 1;
+    public static final int PRESS_RIGHT = 2;
+    public static final int RELEASE_RIGHT = 3;
+    public static final int PRESS_SOFT_DROP = 4;
+    public static final int RELEASE_SOFT_DROP = 5;
+    public static final int ROTATE = 6;
+    public static final int HARD_DROP = 7;
+    public static final int HOLD = 8;
+
+    private static final int NONE = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final InputQueue queue = new InputQueue(QUEUE_CAPACITY);
+    private final Listener listener;
+    private final int dasTicks;
+    private final int arrTicks;
+
+    //State below is only touched by the game loop thread
+    private boolean leftHeld = false;
+    private boolean rightHeld = false;
+    private boolean softDropHeld = false;
+    private int direction = NONE;
+    private int heldTicks = 0;
+
+    /**
+     * InputController(int newDasTicks, int newArrTicks, Listener newListener)
+     * InputController constructor
+     * @param newDasTicks - Ticks a direction has to be held before it starts repeating
+     * @param newArrTicks - Ticks between two repeated moves, at least 1
+     * @param newListener - Listener applying the inputs
+     */
+    public InputController(int newDasTicks, int newArrTicks, Listener newListener) {
+        dasTicks = newDasTicks;
+        arrTicks = Math.max(1, newArrTicks);
+        listener = newListener;
+    }
+
+    /**
+     * submit(int command)
+     * Queues a key command, must only be called from the UI thread
+     * @param command - One of the command constants
+     * @return - Returns false if the queue was full and the command was dropped
+     */
+    public boolean submit(int command) {
+        return queue.offer(command, 0);
+    }
+
+    /**
+     * submit(int command, long pressNanos)
+     * Queues a key command stamped with the time of the key press, must only be called from the UI thread
+     * @param command - One of the command constants
+     * @param pressNanos - System.nanoTime() of the key press, 0 if not measured
+     * @return - Returns false if the queue was full and the command was dropped
+     */
+    public boolean submit(int command, long pressNanos) {
+        return queue.offer(command, pressNanos);
+    }
+
+    /**
+     * update(boolean active)
+     * Applies the queued commands and the auto shift of the held direction for one tick, must be called
+     * by the game loop while holding the lock of the game
+     * @param active - False while the game is paused or not running, held keys are then only tracked
+     */
+    public void update(boolean active) {
+        int command;
+        while ((command = queue.poll()) != InputQueue.EMPTY) {
+            apply(command, queue.getPolledStamp(), active);
+        }
+        if (!active || direction == NONE) {
+            return;
+        }
+        heldTicks++;
+        if (heldTicks >= dasTicks && (heldTicks - dasTicks) % arrTicks == 0) {
+            listener.onInput(direction == LEFT ? GameInput.MOVE_LEFT : GameInput.MOVE_RIGHT, 0);
+        }
+    }
+
+    /**
+     * apply(int command, long pressNanos, boolean active)
+     * Applies a single key command
+     * @param command - Command to apply
+     * @param pressNanos - Time of the key press, 0 if not measured
+     * @param active - False if only the held keys should be tracked
+     */
+    private void apply(int command, long pressNanos, boolean active) {
+        switch (command) {
+            case PRESS_LEFT -> {
+                leftHeld = true;
+                shift(LEFT, pressNanos, active);
+            }
+            case PRESS_RIGHT -> {
+                rightHeld = true;
+                shift(RIGHT, pressNanos, active);
+            }
+            case RELEASE_LEFT -> {
+                leftHeld = false;
+                if (direction == LEFT) {
+                    //Fall back to the other direction if it is still held
+                    direction = rightHeld ? RIGHT : NONE;
+                    heldTicks = 0;
+                }
+            }
+            case RELEASE_RIGHT -> {
+                rightHeld = false;
+                if (direction == RIGHT) {
+                    direction = leftHeld ? LEFT : NONE;
+                    heldTicks = 0;
+                }
+            }
+            case PRESS_SOFT_DROP, RELEASE_SOFT_DROP -> {
+                softDropHeld = command == PRESS_SOFT_DROP;
+                listener.onFastFall(softDropHeld);
+            }
+            case ROTATE -> {
+                if (active) {
+                    listener.onInput(GameInput.ROTATE, pressNanos);
+                }
+            }
+            case HARD_DROP -> {
+                if (active) {
+                    listener.onInput(GameInput.HARD_DROP, pressNanos);
+                }
+            }
+            case HOLD -> {
+                if (active) {
+                    listener.onInput(GameInput.HOLD, pressNanos);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown input command " + command);
+        }
+    }
+
+    /**
+     * shift(int newDirection, long pressNanos, boolean active)
+     * Moves once in a newly pressed direction and starts charging its auto shift
+     * @param newDirection - LEFT or RIGHT
+     * @param pressNanos - Time of the key press, 0 if not measured
+     * @param active - False if the move should not be applied
+     */
+    private void shift(int newDirection, long pressNanos, boolean active) {
+        direction = newDirection;
+        heldTicks = 0;
+        if (active) {
+            listener.onInput(newDirection == LEFT ? GameInput.MOVE_LEFT : GameInput.MOVE_RIGHT, pressNanos);
+        }
+    }
+
+    //region Getters
+
+    public int getDasTicks() {
+        return dasTicks;
+    }
+
+    public int getArrTicks() {
+        return arrTicks;
+    }
+
+    public boolean isSoftDropHeld() {
+        return softDropHeld;
+    }
+
+    //endregion
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: InputQueue
+ * Author: Yannis Seimenis
+ * Description: Bounded lock-free queue of int commands for exactly one producer and one consumer thread.
+ * Every command carries a long stamp, e.g. the time it was submitted at. The producer publishes a slot by
+ * advancing the tail with release semantics after writing it and the consumer frees it by advancing the
+ * head after reading it, so neither side ever blocks or allocates.
+ */
+public class InputQueue {
+    /**
+     * Global variables
+     */
+    public static final int EMPTY = -1;
+
+    private final int[] buffer;
+    private final long[] stamps;
+    private final int mask;
+    //Next slot to read, only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+    //Next slot to write, only written by the producer
+    private final AtomicLong tail = new AtomicLong();
+    //Stamp of the command last returned by poll(), only touched by the consumer
+    private long polledStamp = 0;
+
+    /**
+     * InputQueue(int capacity)
+     * InputQueue constructor
+     * @param capacity - Number of commands the queue holds, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        buffer = new int[size];
+        stamps = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * offer(int command)
+     * Adds a command without a stamp, must only be called from the producer thread
+     * @param command - Non-negative command to add
+     * @return - Returns false if the queue is full and the command was dropped
+     */
+    public boolean offer(int command) {
+        return offer(command, 0);
+    }
+
+    /**
+     * offer(int command, long stamp)
+     * Adds a command, must only be called from the producer thread
+     * @param command - Non-negative command to add
+     * @param stamp - Stamp passed along with the command
+     * @return - Returns false if the queue is full and the command was dropped
+     */
+    public boolean offer(int command, long stamp) {
+        long currentTail = tail.get();
+        if (currentTail - head.getAcquire() == buffer.length) {
+            return false;
+        }
+        buffer[(int) currentTail & mask] = command;
+        stamps[(int) currentTail & mask] = stamp;
+        tail.setRelease(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * poll()
+     * Removes the oldest command, its stamp can then be read with getPolledStamp(). Must only be called
+     * from the consumer thread
+     * @return - Returns the command, EMPTY if the queue is empty
+     */
+    public int poll() {
+        long currentHead = head.get();
+        if (currentHead == tail.getAcquire()) {
+            return EMPTY;
+        }
+        int command = buffer[(int) currentHead & mask];
+        polledStamp = stamps[(int) currentHead & mask];
+        head.setRelease(currentHead + 1);
+        return command;
+    }
+
+    /**
+     * getPolledStamp()
+     * Must only be called from the consumer thread
+     * @return - Returns the stamp of the command last returned by poll()
+     */
+    public long getPolledStamp() {
+        return polledStamp;
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: LoadTestClient
+ * Author: Yannis Seimenis
+ * Description: Opens many concurrent sessions against a GameServer and plays random input on all of them.
+ * Every frame received is decoded against the previous one, so the protocol is checked under load. Without
+ * a host the server is started in this process on the loopback interface, which also reports its tick
+ * latency percentiles. Heap use is reported after the run with every session still connected.
+ * Usage: java LoadTestClient [sessions] [seconds] [inputsPerSecond] [host] [port]
+ */
+public class LoadTestClient {
+    /**
+     * Global variables
+     */
+    private static final int[] INPUT_OPS = {
+            ReplayRecorder.inputOp(GameInput.MOVE_LEFT), ReplayRecorder.inputOp(GameInput.MOVE_RIGHT),
+            ReplayRecorder.inputOp(GameInput.ROTATE), ReplayRecorder.inputOp(GameInput.HARD_DROP),
+            ReplayRecorder.inputOp(GameInput.HOLD), ReplayRecorder.OP_FAST_FALL_ON, ReplayRecorder.OP_FAST_FALL_OFF
+    };
+    private static final long SEND_INTERVAL_MILLIS = 10;
+
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong protocolErrors = new AtomicLong();
+    private final AtomicLong failedConnections = new AtomicLong();
+    private final ExecutorService executor = GameServer.newThreadPerTaskExecutor("load-test-client");
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        double inputsPerSecond = args.length > 2 ? Double.parseDouble(args[2]) : 5;
+
+        GameServer server = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            address = new InetSocketAddress(args[3], args.length > 4 ? Integer.parseInt(args[4]) : GameServer.DEFAULT_PORT);
+        } else {
+            server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), sessions);
+            server.start();
+            address = server.getAddress();
+        }
+        new LoadTestClient().run(address, sessions, seconds, inputsPerSecond, server);
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * run(InetSocketAddress address, int sessions, int seconds, double inputsPerSecond, GameServer server)
+     * Connects the sessions, plays for the given time and prints the results
+     * @param address - Address of the server
+     * @param sessions - Number of concurrent sessions
+     * @param seconds - Time to play once every session is connected
+     * @param inputsPerSecond - Random inputs sent per session per second
+     * @param server - Server running in this process, null for a remote server
+     * @throws InterruptedException - If interrupted while waiting
+     */
+    public void run(InetSocketAddress address, int sessions, int seconds, double inputsPerSecond, GameServer server)
+            throws InterruptedException {
+        long connectStart = System.nanoTime();
+        List<Socket> sockets = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            try {
+                Socket socket = new Socket();
+                socket.connect(address);
+                socket.setTcpNoDelay(true);
+                socket.getOutputStream().write(ReplayRecorder.OP_START);
+                sockets.add(socket);
+                executor.execute(() -> readFrames(socket));
+            } catch (IOException e) {
+                failedConnections.incrementAndGet();
+            }
+        }
+        System.out.printf(Locale.ROOT, "Connected %d sessions in %.2f s (%d failed)%n", sockets.size(),
+                (System.nanoTime() - connectStart) / 1e9, failedConnections.get());
+
+        //One thread sends the input of every session, spread evenly over the send intervals
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long framesAtStart = framesReceived.get();
+        long bytesAtStart = bytesReceived.get();
+        double inputsPerInterval = sockets.size() * inputsPerSecond * SEND_INTERVAL_MILLIS / 1000;
+        double owed = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < end && !sockets.isEmpty()) {
+            owed += inputsPerInterval;
+            for (; owed >= 1; owed--) {
+                Socket socket = sockets.get(random.nextInt(sockets.size()));
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    //Restart games that are over, the reset is ignored while a game is running
+                    out.write(random.nextInt(100) == 0 ? ReplayRecorder.OP_RESET : INPUT_OPS[random.nextInt(INPUT_OPS.length)]);
+                } catch (IOException e) {
+                    protocolErrors.incrementAndGet();
+                }
+            }
+            Thread.sleep(SEND_INTERVAL_MILLIS);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf(Locale.ROOT, "Played %.1f s: %.0f frames/s, %.1f KiB/s, %d protocol errors%n", elapsed,
+                (framesReceived.get() - framesAtStart) / elapsed, (bytesReceived.get() - bytesAtStart) / 1024.0 / elapsed,
+                protocolErrors.get());
+        System.out.printf(Locale.ROOT, "Heap used with %d sessions open: %.1f MiB (%.1f KiB per session), %d threads%n",
+                sockets.size(), (runtime.totalMemory() - runtime.freeMemory()) / 1048576.0,
+                (runtime.totalMemory() - runtime.freeMemory()) / 1024.0 / Math.max(1, sockets.size()),
+                Thread.activeCount());
+        if (server != null) {
+            System.out.println("Server: " + server.report());
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //Already closed
+            }
+        }
+    }
+
+    /**
+     * readFrames(Socket socket)
+     * Receives and decodes the frames of a session until it is closed
+     * @param socket - Connection of the session
+     */
+    private void readFrames(Socket socket) {
+        byte[] buffer = new byte[GameSnapshot.MAX_DELTA_SIZE];
+        GameSnapshot snapshot = null;
+        try {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            while (true) {
+                int length = in.readUnsignedShort();
+                in.readFully(buffer, 0, length);
+                ByteBuffer frame = ByteBuffer.wrap(buffer, 0, length);
+                snapshot = GameSnapshot.readDelta(snapshot, frame);
+                if (frame.hasRemaining()) {
+                    throw new IllegalArgumentException("Frame has " + frame.remaining() + " trailing bytes");
+                }
+                framesReceived.incrementAndGet();
+                bytesReceived.addAndGet(2 + length);
+            }
+        } catch (EOFException e) {
+            //Server closed the session
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                protocolErrors.incrementAndGet();
+            }
+        } catch (IllegalArgumentException e) {
+            protocolErrors.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class: Metrics
+ * Author: Yannis Seimenis
+ * Description: Registry of the gameplay and rendering measurements. Recording is switched on with
+ * -Dtetris.metrics=true; when it is off every call site is skipped on a constant check. When on, the
+ * registry is published as an MBean and, with -Dtetris.statsd=host:port, sent to a statsd collector.
+ */
+public final class Metrics {
+    /**
+     * Global variables
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("tetris.metrics");
+
+    /** Wall-clock error of the interval between two gravity steps against the ticks it was scheduled for */
+    public static final Histogram GRAVITY_JITTER = new Histogram("gravity.jitter");
+    /** Time from a key press to the first paint of the grid showing the input it caused */
+    public static final Histogram INPUT_LATENCY = new Histogram("input.latency");
+    /** Time to lock a block, including clearing rows and spawning the next block */
+    public static final Histogram LOCK_TIME = new Histogram("engine.lock");
+    /** Time to find and remove full rows */
+    public static final Histogram CLEAR_ROWS_TIME = new Histogram("engine.clearRows");
+    /** Time to redraw the settled cells from the board after a lock or line clear */
+    public static final Histogram BOARD_SYNC_TIME = new Histogram("ui.boardSync");
+    /** Time to paint the grid */
+    public static final Histogram FRAME_TIME = new Histogram("render.frame");
+
+    public static final List<Histogram> HISTOGRAMS = List.of(GRAVITY_JITTER, INPUT_LATENCY, LOCK_TIME,
+            CLEAR_ROWS_TIME, BOARD_SYNC_TIME, FRAME_TIME);
+
+    private static final AtomicLong pieces = new AtomicLong();
+    private static volatile long startNanos = System.nanoTime();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("tetris:type=Metrics"));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            String statsd = System.getProperty("tetris.statsd");
+            if (statsd != null) {
+                StatsdExporter.start(statsd, Long.getLong("tetris.statsd.intervalMillis", 10_000));
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * pieceLocked()
+     * Counts a locked block
+     */
+    public static void pieceLocked() {
+        pieces.incrementAndGet();
+    }
+
+    /**
+     * frameRendered(long frameStartNanos, long inputNanos)
+     * Records the time of a frame and the latency of the input it shows
+     * @param frameStartNanos - System.nanoTime() when painting started
+     * @param inputNanos - System.nanoTime() of the key press whose input the frame shows first, 0 if none
+     */
+    public static void frameRendered(long frameStartNanos, long inputNanos) {
+        long now = System.nanoTime();
+        FRAME_TIME.record(now - frameStartNanos);
+        if (inputNanos != 0) {
+            INPUT_LATENCY.record(now - inputNanos);
+        }
+    }
+
+    public static long getPieces() {
+        return pieces.get();
+    }
+
+    /**
+     * getPiecesPerSecond()
+     * @return - Returns the pieces locked per second since the start or the last reset
+     */
+    public static double getPiecesPerSecond() {
+        return pieces.get() * 1e9 / Math.max(1, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * reset()
+     * Clears every histogram and the piece counter
+     */
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        pieces.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Class: Bean
+     * Description: MBean view of the registry
+     */
+    private static class Bean implements MetricsMXBean {
+        @Override
+        public Map<String, Double> getValues() {
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (Histogram histogram : HISTOGRAMS) {
+                String name = histogram.getName();
+                values.put(name + ".count", (double) histogram.getCount());
+                values.put(name + ".mean", histogram.getMean() / 1e3);
+                values.put(name + ".p50", histogram.getValueAtPercentile(50) / 1e3);
+                values.put(name + ".p90", histogram.getValueAtPercentile(90) / 1e3);
+                values.put(name + ".p99", histogram.getValueAtPercentile(99) / 1e3);
+                values.put(name + ".max", histogram.getMax() / 1e3);
+            }
+            return values;
+        }
+
+        @Override
+        public long getPieces() {
+            return Metrics.getPieces();
+        }
+
+        @Override
+        public double getPiecesPerSecond() {
+            return Metrics.getPiecesPerSecond();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
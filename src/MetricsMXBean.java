@@ -0,0 +1,24 @@
+import java.util.Map;
+
+/**
+ * Interface: MetricsMXBean
+ * Author: Yannis Seimenis
+ * Description: Management interface of the metrics registry, registered as tetris:type=Metrics.
+ */
+public interface MetricsMXBean {
+    /**
+     * getValues()
+     * @return - Returns count, mean, p50, p90, p99 and max of every histogram, timings in microseconds
+     */
+    Map<String, Double> getValues();
+
+    long getPieces();
+
+    double getPiecesPerSecond();
+
+    /**
+     * reset()
+     * Clears every histogram and the piece counter
+     */
+    void reset();
+}
@@ -0,0 +1,14 @@
+/**
+ * Interface: PlacementPolicy
+ * Author: Yannis Seimenis
+ * Description: Decides where the current block of a game should be placed. Used to play games
+ * without a player, for example in the batch simulator.
+ */
+public interface PlacementPolicy {
+    /**
+     * placeBlock(Game game)
+     * Moves, rotates or holds the current block of the game using game.apply() before it is dropped
+     * @param game - Game whose current block should be placed
+     */
+    void placeBlock(Game game);
+}
@@ -0,0 +1,34 @@
+import java.util.SplittableRandom;
+
+/**
+ * Class: RandomPlacementPolicy
+ * Author: Yannis Seimenis
+ * Description: Placement policy that drops every block with a random rotation and column.
+ */
+public class RandomPlacementPolicy implements PlacementPolicy {
+    /**
+     * Global variables
+     */
+    private final SplittableRandom random;
+
+    /**
+     * RandomPlacementPolicy(long seed)
+     * RandomPlacementPolicy constructor, initialises the random generator
+     * @param seed - Seed for the random generator
+     */
+    public RandomPlacementPolicy(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void placeBlock(Game game) {
+        int rotations = random.nextInt(4);
+        for (int i = 0; i < rotations; i++) {
+            game.apply(GameInput.ROTATE);
+        }
+        int moves = random.nextInt(-5, 6);
+        for (int i = 0; i < Math.abs(moves); i++) {
+            game.apply(moves < 0 ? GameInput.MOVE_LEFT : GameInput.MOVE_RIGHT);
+        }
+    }
+}
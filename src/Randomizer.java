@@ -0,0 +1,34 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Interface: Randomizer
+ * Author: Yannis Seimenis
+ * Description: Generates the sequence of block types fed into the block queue. Every implementation
+ * is driven by an explicit seed so the same seed always produces the same sequence.
+ */
+public interface Randomizer {
+    /**
+     * Number of bytes reserved for the state of a randomizer in a saved game
+     */
+    int STATE_SIZE = 24;
+
+    /**
+     * nextBlock()
+     * @return - Returns the next block type represented as int
+     */
+    int nextBlock();
+
+    /**
+     * writeState(ByteBuffer out)
+     * Writes everything needed to continue the sequence, at most STATE_SIZE bytes
+     * @param out - Buffer to write to
+     */
+    void writeState(ByteBuffer out);
+
+    /**
+     * readState(ByteBuffer in)
+     * Continues the sequence from a state written by writeState of the same kind of randomizer
+     * @param in - Buffer to read from
+     */
+    void readState(ByteBuffer in);
+}
@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Class: ReplayPlayer
+ * Author: Yannis Seimenis
+ * Description: Re-executes a replay recorded by ReplayRecorder against a headless game as fast as the
+ * CPU allows. Ticks are run until each event is due, then the event is applied, so the game goes through
+ * exactly the same states as the recorded session.
+ * Usage: java ReplayPlayer <file>
+ */
+public class ReplayPlayer {
+    /**
+     * Global variables
+     */
+    private final ByteBuffer buffer;
+    private final Game game;
+
+    private long ticks = 0;
+    private long events = 0;
+    private boolean ended = false;
+    private int recordedScore = -1;
+
+    /**
+     * ReplayPlayer(ByteBuffer newBuffer)
+     * ReplayPlayer constructor, reads the header and creates the game
+     * @param newBuffer - Contents of the replay file
+     */
+    public ReplayPlayer(ByteBuffer newBuffer) {
+        buffer = newBuffer;
+        if (buffer.remaining() < ReplayRecorder.V1_HEADER_SIZE || buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a replay file");
+        }
+        int version = buffer.get();
+        if (version != 1 && version != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version " + version);
+        }
+        long seed = buffer.getLong();
+        int previewSize = buffer.get();
+        if (version == 1) {
+            game = new Game(new UniformRandomizer(seed), previewSize);
+        } else {
+            if (buffer.remaining() < ReplayRecorder.HEADER_SIZE - ReplayRecorder.V1_HEADER_SIZE) {
+                throw new IllegalArgumentException("Not a replay file");
+            }
+            game = new Game(new UniformRandomizer(seed), previewSize, buffer.get(), buffer.get(), buffer.get());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java ReplayPlayer <file>");
+            return;
+        }
+        ReplayPlayer player = open(Paths.get(args[0]));
+        long start = System.nanoTime();
+        player.play();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Game game = player.getGame();
+        System.out.printf(Locale.ROOT, "Replayed %d events and %d ticks in %.3f s (%.0f ticks/s)%n",
+                player.getEvents(), player.getTicks(), seconds, player.getTicks() / seconds);
+        System.out.printf(Locale.ROOT, "Score: %d, lines: %d, level: %d%n",
+                game.getScore(), game.getTotalLines(), game.getLevel());
+        if (!player.isEnded()) {
+            System.out.println("Replay was not closed, the session ends at the last event");
+        } else if (player.getRecordedScore() != game.getScore()) {
+            System.out.println("MISMATCH: recorded score " + player.getRecordedScore());
+        } else {
+            System.out.println("Score matches the recording");
+        }
+    }
+
+    /**
+     * open(Path path)
+     * Maps a replay file
+     * @param path - Replay file
+     * @return - Returns a player for the file
+     * @throws IOException - If the file can not be read
+     */
+    public static ReplayPlayer open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ReplayPlayer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * play()
+     * Runs the whole replay
+     */
+    public void play() {
+        while (!ended && buffer.hasRemaining()) {
+            long event = getVarLong();
+            int op = (int) (event & ((1 << ReplayRecorder.OP_BITS) - 1));
+            if (op == 0) {
+                //Zeroed tail of a file that was not closed
+                break;
+            }
+            runTicks(ticks + (event >>> ReplayRecorder.OP_BITS));
+            apply(op);
+            events++;
+        }
+    }
+
+    /**
+     * runTicks(long tick)
+     * Runs game ticks until the tick count is reached
+     * @param tick - Tick count to reach
+     */
+    private void runTicks(long tick) {
+        while (ticks < tick) {
+            if (!game.isRunning()) {
+                throw new IllegalStateException("Replay has ticks after the game ended, tick " + ticks);
+            }
+            game.tick();
+            ticks++;
+        }
+    }
+
+    /**
+     * apply(int op)
+     * Applies a recorded event to the game
+     * @param op - Opcode of the event
+     */
+    private void apply(int op) {
+        switch (op) {
+            case ReplayRecorder.OP_START -> game.startGame();
+            case ReplayRecorder.OP_RESET -> game.resetGame();
+            case ReplayRecorder.OP_RESTORE -> game.readState(buffer);
+            case ReplayRecorder.OP_FAST_FALL_ON -> game.setFastFall(true);
+            case ReplayRecorder.OP_FAST_FALL_OFF -> game.setFastFall(false);
+            case ReplayRecorder.OP_END -> {
+                recordedScore = (int) getVarLong();
+                ended = true;
+            }
+            default -> {
+                if (op > GameInput.values().length) {
+                    throw new IllegalArgumentException("Unknown replay opcode " + op);
+                }
+                game.apply(GameInput.values()[op - 1]);
+            }
+        }
+    }
+
+    /**
+     * getVarLong()
+     * @return - Returns the next varint of the replay
+     */
+    private long getVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    //region Getters
+
+    public Game getGame() {
+        return game;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    public int getRecordedScore() {
+        return recordedScore;
+    }
+
+    //endregion
+}
@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class: ReplayRecorder
+ * Author: Yannis Seimenis
+ * Description: Records a session as its seed and the player inputs stamped with the game loop tick they
+ * were applied after. Events are appended to a memory-mapped file, so recording an input is a few byte
+ * writes into memory and never waits on the disk. The file is grown a region at a time.
+ * File format: magic "TRPL", version byte, seed (long), preview size byte, board width, visible height and
+ * hidden rows bytes (version 2, version 1 files are standard boards), then one varint per event
+ * holding (tick delta << 4 | opcode). Opcode 0 never occurs, so the zeroed tail of a file that was not
+ * closed ends the log. OP_END is followed by a varint with the final score, OP_RESTORE by a saved game
+ * record of Game.getStateSize() bytes the game continues from.
+ * Only used on one thread at a time.
+ */
+public class ReplayRecorder implements AutoCloseable {
+    /**
+     * Global variables
+     */
+    public static final int MAGIC = 0x5452504C;
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 17;
+    public static final int V1_HEADER_SIZE = 14;
+    public static final int OP_BITS = 4;
+
+    //Opcodes 1 to 9 are GameInput ordinals + 1
+    public static final int OP_RESTORE = 10;
+    public static final int OP_FAST_FALL_OFF = 11;
+    public static final int OP_FAST_FALL_ON = 12;
+    public static final int OP_END = 13;
+    public static final int OP_RESET = 14;
+    public static final int OP_START = 15;
+
+    private static final int REGION_SIZE = 64 * 1024;
+    //Longest event apart from a saved game: a 10 byte varint plus the score varint
+    private static final int MAX_EVENT_SIZE = 15;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long regionStart = 0;
+    private long lastTick = 0;
+    private boolean closed = false;
+
+    /**
+     * ReplayRecorder(Path path, long seed, int previewSize)
+     * ReplayRecorder constructor, creates the file and writes the header
+     * @param path - File to record to, replaced if it exists
+     * @param seed - Seed of the game
+     * @param previewSize - Preview size of the game
+     * @throws IOException - If the file can not be created
+     */
+    public ReplayRecorder(Path path, long seed, int previewSize) throws IOException {
+        this(path, seed, previewSize, Board.WIDTH, Board.HEIGHT, 0);
+    }
+
+    /**
+     * ReplayRecorder(Path path, long seed, int previewSize, int width, int visibleHeight, int hiddenRows)
+     * ReplayRecorder constructor, creates the file and writes the header for a game on a board of any size
+     * @param path - File to record to, replaced if it exists
+     * @param seed - Seed of the game
+     * @param previewSize - Preview size of the game
+     * @param width - Number of columns of the board
+     * @param visibleHeight - Number of visible rows of the board
+     * @param hiddenRows - Number of hidden rows of the board
+     * @throws IOException - If the file can not be created
+     */
+    public ReplayRecorder(Path path, long seed, int previewSize, int width, int visibleHeight, int hiddenRows)
+            throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putLong(seed);
+        buffer.put((byte) previewSize);
+        buffer.put((byte) width);
+        buffer.put((byte) visibleHeight);
+        buffer.put((byte) hiddenRows);
+    }
+
+    /**
+     * inputOp(GameInput input)
+     * @param input - Player input
+     * @return - Returns the opcode of the input
+     */
+    public static int inputOp(GameInput input) {
+        return input.ordinal() + 1;
+    }
+
+    /**
+     * record(long tick, GameInput input)
+     * Records a player input
+     * @param tick - Number of game ticks run before the input was applied
+     * @param input - Input that was applied
+     */
+    public void record(long tick, GameInput input) {
+        record(tick, inputOp(input));
+    }
+
+    /**
+     * record(long tick, int op)
+     * Records an event
+     * @param tick - Number of game ticks run before the event
+     * @param op - Opcode of the event
+     */
+    public void record(long tick, int op) {
+        if (closed || !ensureCapacity(MAX_EVENT_SIZE)) {
+            return;
+        }
+        putVarLong((tick - lastTick) << OP_BITS | op);
+        lastTick = tick;
+    }
+
+    /**
+     * recordState(long tick, Game game)
+     * Records that the session continues from a saved game
+     * @param tick - Number of game ticks run before the game was restored
+     * @param game - Game the saved state was restored into
+     */
+    public void recordState(long tick, Game game) {
+        if (closed || !ensureCapacity(MAX_EVENT_SIZE + game.getStateSize())) {
+            return;
+        }
+        record(tick, OP_RESTORE);
+        game.writeState(buffer);
+    }
+
+    /**
+     * close()
+     * Records the end of the session, flushes the file and cuts off the unused part of the last region
+     * @param tick - Number of game ticks run in the session
+     * @param score - Score of the current game
+     */
+    public void close(long tick, int score) {
+        if (closed || !ensureCapacity(MAX_EVENT_SIZE)) {
+            return;
+        }
+        record(tick, OP_END);
+        putVarLong(score);
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            buffer.force();
+            channel.truncate(regionStart + buffer.position());
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ensureCapacity(int size)
+     * Maps the next region of the file when the current one can not hold another event
+     * @param size - Largest number of bytes the event can take
+     * @return - Returns false if the file could not be grown, recording stops
+     */
+    private boolean ensureCapacity(int size) {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+        try {
+            regionStart += buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, REGION_SIZE);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            closed = true;
+            return false;
+        }
+    }
+
+    /**
+     * putVarLong(long value)
+     * Writes an unsigned value using 7 bits per byte, the high bit marks that another byte follows
+     * @param value - Value to write
+     */
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * createFile(Path directory)
+     * Creates the replay directory if needed and picks a file name for a new session
+     * @param directory - Directory to store replays in
+     * @return - Returns the path of the new replay file
+     * @throws IOException - If the directory can not be created
+     */
+    public static Path createFile(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve("replay-" + System.currentTimeMillis() + ".trp");
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Class: SeededRandom
+ * Author: Yannis Seimenis
+ * Description: Small SplitMix64 random generator whose whole state is a single long, so a sequence
+ * can be reproduced from its seed and saved or restored at any point.
+ */
+public class SeededRandom {
+    /**
+     * Global variables
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /**
+     * SeededRandom(long seed)
+     * SeededRandom constructor, initialises the state from a seed
+     * @param seed - Seed of the sequence
+     */
+    public SeededRandom(long seed) {
+        state = seed;
+    }
+
+    /**
+     * nextLong()
+     * @return - Returns the next random long
+     */
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * nextInt(int bound)
+     * @param bound - Upper bound (exclusive), must be positive
+     * @return - Returns the next random int between 0 and bound
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * nextDouble()
+     * @return - Returns the next random double between 0 (inclusive) and 1 (exclusive)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * nextGaussian()
+     * @return - Returns the next normally distributed double with mean 0 and standard deviation 1
+     */
+    public double nextGaussian() {
+        //Box-Muller transform, 1 - nextDouble() is never 0
+        double radius = Math.sqrt(-2 * Math.log(1 - nextDouble()));
+        return radius * Math.cos(2 * Math.PI * nextDouble());
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
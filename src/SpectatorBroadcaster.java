@@ -0,0 +1,356 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Class: SpectatorBroadcaster
+ * Author: Yannis Seimenis
+ * Description: Streams one game to many spectators. A single thread polls the latest snapshot of the game
+ * every tick and encodes the change since the previous one once, as a frame in the same format the
+ * GameServer sends. The shared read-only frame is queued on every subscriber as a view of its own
+ * and written with non-blocking gathering writes, so a batch of frames leaves in one call per subscriber.
+ * The game never waits on the broadcast. A subscriber whose backlog grows too large has it thrown away
+ * and gets a key frame instead, and one that keeps falling behind is dropped.
+ * Usage: java SpectatorBroadcaster [port] - streams a game played by the AutoPlayer
+ */
+public class SpectatorBroadcaster implements AutoCloseable {
+    /**
+     * Global variables
+     */
+    public static final int DEFAULT_PORT = 7778;
+
+    //Backlog allowed per spectator in the kernel and in the queue, beyond it the spectator is resynced
+    private static final int SEND_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_PENDING_BYTES = 16 * 1024;
+    private static final int MAX_RESYNCS = 3;
+    private static final int MAX_BATCH = 64;
+    private static final int DEMO_PLACEMENT_MILLIS = 150;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Supplier<GameSnapshot> source;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH];
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64);
+    private final Thread thread;
+
+    private GameSnapshot lastSnapshot;
+    //Key frame of the last snapshot, encoded when the first subscriber needs it
+    private ByteBuffer keyFrame;
+
+    private long framesEncoded = 0;
+    private long bytesWritten = 0;
+    private long resyncs = 0;
+    private long dropped = 0;
+
+    private volatile boolean closed = false;
+
+    /**
+     * SpectatorBroadcaster(InetSocketAddress address, Supplier<GameSnapshot> newSource)
+     * SpectatorBroadcaster constructor, binds the socket and starts the broadcast thread
+     * @param address - Address spectators connect to, port 0 picks a free port
+     * @param newSource - Returns the latest snapshot of the game, called on the broadcast thread
+     * @throws IOException - If the socket can not be bound
+     */
+    public SpectatorBroadcaster(InetSocketAddress address, Supplier<GameSnapshot> newSource) throws IOException {
+        source = newSource;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "spectator-broadcast");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Game game = new Game();
+        AutoPlayer autoPlayer = new AutoPlayer();
+        AtomicReference<GameSnapshot> latest = new AtomicReference<>();
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster(new InetSocketAddress(port), latest::get);
+        System.out.println("Broadcasting on " + broadcaster.getAddress());
+        game.startGame();
+        long placements = 0;
+        while (true) {
+            if (!game.isRunning()) {
+                game.resetGame();
+            }
+            autoPlayer.placeBlock(game);
+            game.hardDrop();
+            latest.set(GameSnapshot.capture(game, ++placements));
+            if (placements % 100 == 0) {
+                System.out.println(broadcaster.report());
+            }
+            Thread.sleep(DEMO_PLACEMENT_MILLIS);
+        }
+    }
+
+    /**
+     * run()
+     * Broadcast loop, waits for socket events at most one tick and then sends the latest change
+     */
+    private void run() {
+        while (!closed) {
+            try {
+                selector.select(Game.TICK_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Subscriber subscriber = (Subscriber) key.attachment();
+                        if (key.isReadable()) {
+                            readFrom(subscriber);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(subscriber);
+                        }
+                    }
+                }
+                broadcast();
+            } catch (IOException | RuntimeException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * accept()
+     * Accepts a new spectator, it gets a key frame with the next broadcast
+     * @throws IOException - If the connection can not be accepted
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_SIZE);
+        Subscriber subscriber = new Subscriber(channel);
+        subscriber.key = channel.register(selector, SelectionKey.OP_READ, subscriber);
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * readFrom(Subscriber subscriber)
+     * Discards anything a spectator sends and notices when it disconnects
+     * @param subscriber - Spectator whose socket is readable
+     */
+    private void readFrom(Subscriber subscriber) {
+        try {
+            readBuffer.clear();
+            if (subscriber.channel.read(readBuffer) == -1) {
+                drop(subscriber);
+            }
+        } catch (IOException e) {
+            drop(subscriber);
+        }
+    }
+
+    /**
+     * broadcast()
+     * Encodes the change of the game since the last broadcast once and queues it on every subscriber
+     */
+    private void broadcast() {
+        GameSnapshot snapshot = source.get();
+        if (snapshot != null && snapshot != lastSnapshot && (lastSnapshot == null || !snapshot.sameState(lastSnapshot))) {
+            ByteBuffer frame = encode(lastSnapshot, snapshot);
+            lastSnapshot = snapshot;
+            keyFrame = null;
+            framesEncoded++;
+            //Backwards, enqueue can drop a subscriber
+            for (int i = subscribers.size() - 1; i >= 0; i--) {
+                Subscriber subscriber = subscribers.get(i);
+                if (!subscriber.needsKeyFrame) {
+                    subscriber.enqueue(frame);
+                }
+            }
+        }
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscriber subscriber = subscribers.get(i);
+            if (subscriber.needsKeyFrame && lastSnapshot != null) {
+                if (keyFrame == null) {
+                    keyFrame = encode(null, lastSnapshot);
+                }
+                subscriber.needsKeyFrame = false;
+                subscriber.enqueue(keyFrame);
+            }
+            if (subscriber.pendingBytes > 0) {
+                flush(subscriber);
+            }
+        }
+    }
+
+    /**
+     * encode(GameSnapshot previous, GameSnapshot snapshot)
+     * @param previous - Snapshot the spectators already have, null for a key frame
+     * @param snapshot - Snapshot to send
+     * @return - Returns a read-only buffer with the length prefixed frame
+     */
+    private static ByteBuffer encode(GameSnapshot previous, GameSnapshot snapshot) {
+        ByteBuffer frame = ByteBuffer.allocate(2 + snapshot.getMaxDeltaSize());
+        frame.putShort((short) 0);
+        snapshot.writeDelta(previous, frame);
+        frame.putShort(0, (short) (frame.position() - 2));
+        frame.flip();
+        return frame.asReadOnlyBuffer();
+    }
+
+    /**
+     * flush(Subscriber subscriber)
+     * Writes as much of the backlog of a subscriber as its socket takes in one gathering write, and waits
+     * for the socket to become writable if something is left
+     * @param subscriber - Subscriber to write to
+     */
+    private void flush(Subscriber subscriber) {
+        int count = 0;
+        for (ByteBuffer buffer : subscriber.pending) {
+            if (count == MAX_BATCH) {
+                break;
+            }
+            batch[count++] = buffer;
+        }
+        try {
+            long written = subscriber.channel.write(batch, 0, count);
+            bytesWritten += written;
+            subscriber.pendingBytes -= written;
+        } catch (IOException e) {
+            drop(subscriber);
+            return;
+        } finally {
+            Arrays.fill(batch, 0, count, null);
+        }
+        while (!subscriber.pending.isEmpty() && !subscriber.pending.peekFirst().hasRemaining()) {
+            subscriber.pending.pollFirst();
+        }
+        if (subscriber.pending.isEmpty()) {
+            subscriber.resyncs = 0;
+            subscriber.key.interestOps(SelectionKey.OP_READ);
+        } else {
+            subscriber.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * drop(Subscriber subscriber)
+     * Disconnects a subscriber
+     * @param subscriber - Subscriber to disconnect
+     */
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped++;
+        }
+        subscriber.key.cancel();
+        try {
+            subscriber.channel.close();
+        } catch (IOException e) {
+            //Already closed
+        }
+    }
+
+    /**
+     * close()
+     * Stops the broadcast and disconnects every spectator
+     * @throws IOException - If the sockets can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.channel.close();
+        }
+        serverChannel.close();
+        selector.close();
+    }
+
+    /**
+     * report()
+     * @return - Returns a line with the subscribers and traffic, read from the broadcast thread without locking
+     */
+    public String report() {
+        return String.format(Locale.ROOT, "spectators %d, frames encoded %d, %.1f KiB written, resyncs %d, dropped %d",
+                subscribers.size(), framesEncoded, bytesWritten / 1024.0, resyncs, dropped);
+    }
+
+    //region Getters
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    //endregion
+
+    /**
+     * Class: Subscriber
+     * Description: A connected spectator and the frames not yet written to it
+     */
+    private class Subscriber {
+        private final SocketChannel channel;
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private SelectionKey key;
+        private long pendingBytes = 0;
+        private boolean needsKeyFrame = true;
+        private int resyncs = 0;
+
+        private Subscriber(SocketChannel newChannel) {
+            channel = newChannel;
+        }
+
+        /**
+         * enqueue(ByteBuffer frame)
+         * Queues a view of a shared frame. When the backlog is too large it is thrown away, except for a
+         * partly written frame, and the subscriber is resynced with a key frame, or dropped if it keeps
+         * falling behind
+         * @param frame - Shared frame
+         */
+        private void enqueue(ByteBuffer frame) {
+            if (pendingBytes + frame.remaining() > MAX_PENDING_BYTES) {
+                if (++this.resyncs > MAX_RESYNCS) {
+                    drop(this);
+                    return;
+                }
+                SpectatorBroadcaster.this.resyncs++;
+                ByteBuffer partial = pending.peekFirst();
+                pending.clear();
+                pendingBytes = 0;
+                if (partial != null && partial.position() > 0 && partial.hasRemaining()) {
+                    pending.add(partial);
+                    pendingBytes = partial.remaining();
+                }
+                needsKeyFrame = true;
+                return;
+            }
+            pending.add(frame.duplicate());
+            pendingBytes += frame.remaining();
+        }
+    }
+}
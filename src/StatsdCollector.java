@@ -0,0 +1,28 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class: StatsdCollector
+ * Author: Yannis Seimenis
+ * Description: Stand-in statsd collector for local testing, prints every metric line it receives.
+ * Usage: java StatsdCollector [port]
+ */
+public class StatsdCollector {
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8125;
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.bind(new InetSocketAddress(port));
+            System.out.println("Listening for statsd metrics on UDP port " + port);
+            ByteBuffer buffer = ByteBuffer.allocate(65536);
+            while (true) {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+                System.out.print(StandardCharsets.UTF_8.decode(buffer));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class: StatsdExporter
+ * Author: Yannis Seimenis
+ * Description: Sends the metrics to a statsd collector over UDP at a fixed interval. Histograms are sent
+ * as gauges of their percentiles in microseconds and locked pieces as a counter of the pieces since the
+ * last send. Lines are packed into datagrams that fit a typical network MTU.
+ */
+public class StatsdExporter {
+    /**
+     * Global variables
+     */
+    private static final String PREFIX = "tetris.";
+    private static final int MAX_PACKET_SIZE = 1432;
+
+    private final DatagramChannel channel;
+    private final ByteBuffer packet = ByteBuffer.allocate(MAX_PACKET_SIZE);
+    private long lastPieces = 0;
+
+    /**
+     * StatsdExporter(InetSocketAddress address)
+     * StatsdExporter constructor, connects the socket
+     * @param address - Address of the collector
+     * @throws IOException - If the socket can not be opened
+     */
+    private StatsdExporter(InetSocketAddress address) throws IOException {
+        channel = DatagramChannel.open();
+        channel.connect(address);
+    }
+
+    /**
+     * start(String target, long intervalMillis)
+     * Starts sending the metrics on a daemon thread
+     * @param target - Collector as host:port
+     * @param intervalMillis - Time between two sends
+     */
+    public static void start(String target, long intervalMillis) {
+        int colon = target.lastIndexOf(':');
+        try {
+            InetSocketAddress address = new InetSocketAddress(target.substring(0, colon),
+                    Integer.parseInt(target.substring(colon + 1)));
+            StatsdExporter exporter = new StatsdExporter(address);
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "statsd-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(exporter::send, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not start statsd exporter for " + target + ": " + e);
+        }
+    }
+
+    /**
+     * send()
+     * Sends one round of metrics
+     */
+    private void send() {
+        try {
+            for (Histogram histogram : Metrics.HISTOGRAMS) {
+                String name = PREFIX + histogram.getName();
+                add(name + ".count", Long.toString(histogram.getCount()), "g");
+                add(name + ".p50", micros(histogram.getValueAtPercentile(50)), "g");
+                add(name + ".p99", micros(histogram.getValueAtPercentile(99)), "g");
+                add(name + ".max", micros(histogram.getMax()), "g");
+            }
+            long pieces = Metrics.getPieces();
+            add(PREFIX + "pieces", Long.toString(pieces - lastPieces), "c");
+            lastPieces = pieces;
+            flush();
+        } catch (IOException e) {
+            //Statsd is best effort, try again next round
+            packet.clear();
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e3);
+    }
+
+    /**
+     * add(String name, String value, String type)
+     * Appends a metric line, sending the packet first if the line does not fit
+     * @param name - Name of the metric
+     * @param value - Value of the metric
+     * @param type - Statsd type, g for gauges and c for counters
+     * @throws IOException - If a full packet can not be sent
+     */
+    private void add(String name, String value, String type) throws IOException {
+        byte[] line = (name + ':' + value + '|' + type + '\n').getBytes(StandardCharsets.UTF_8);
+        if (packet.remaining() < line.length) {
+            flush();
+        }
+        packet.put(line);
+    }
+
+    /**
+     * flush()
+     * Sends the collected lines as one datagram
+     * @throws IOException - If the datagram can not be sent
+     */
+    private void flush() throws IOException {
+        packet.flip();
+        if (packet.hasRemaining()) {
+            channel.write(packet);
+        }
+        packet.clear();
+    }
+}
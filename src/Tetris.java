@@ -1,7 +1,13 @@
+import java.util.concurrent.ThreadLocalRandom;
+
 public class Tetris {
 
     public static void main(String[] args) {
-        new Frame(new Game());
+        //Board size, e.g. -Dtetris.width=40 -Dtetris.height=100 for party mode
+        int width = Integer.getInteger("tetris.width", Board.WIDTH);
+        int height = Integer.getInteger("tetris.height", Board.HEIGHT);
+        int hiddenRows = Integer.getInteger("tetris.hiddenRows", 0);
+        new Frame(new Game(ThreadLocalRandom.current().nextLong(), width, height, hiddenRows));
     }
 
 }
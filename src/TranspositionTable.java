@@ -0,0 +1,115 @@
+import java.util.Arrays;
+
+/**
+ * Class: TranspositionTable
+ * Author: Yannis Seimenis
+ * Description: Fixed size hash table from 64 bit Zobrist keys to int values, used by the search to notice
+ * states that were already reached through a different order of moves. Entries belong to a generation and
+ * starting a new generation empties the table without touching memory. Slots are probed linearly for a
+ * few steps; when they are all taken by the current generation the entry in the home slot is replaced.
+ * Not thread safe.
+ */
+public class TranspositionTable {
+    /**
+     * Global variables
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int MAX_PROBES = 8;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int[] generations;
+    private final int mask;
+    private int generation = 1;
+
+    private long lookups = 0;
+    private long hits = 0;
+    private long evictions = 0;
+
+    /**
+     * TranspositionTable(int capacity)
+     * TranspositionTable constructor
+     * @param capacity - Number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(MAX_PROBES, capacity) - 1) << 1;
+        keys = new long[size];
+        values = new int[size];
+        generations = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * putIfAbsent(long key, int value)
+     * Looks a key up and stores the value if the key is not in the current generation
+     * @param key - Zobrist key of the state
+     * @param value - Value to store
+     * @return - Returns the value already stored for the key, NOT_FOUND if the value was stored
+     */
+    public int putIfAbsent(long key, int value) {
+        lookups++;
+        int home = (int) (key ^ (key >>> 32)) & mask;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (home + i) & mask;
+            if (generations[slot] != generation) {
+                store(slot, key, value);
+                return NOT_FOUND;
+            }
+            if (keys[slot] == key) {
+                hits++;
+                return values[slot];
+            }
+        }
+        evictions++;
+        store(home, key, value);
+        return NOT_FOUND;
+    }
+
+    /**
+     * nextGeneration()
+     * Forgets every entry
+     */
+    public void nextGeneration() {
+        generation++;
+        if (generation == 0) {
+            //Wrapped around, old slots could look current again
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    private void store(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        generations[slot] = generation;
+    }
+
+    //region Getters
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * getHitRate()
+     * @return - Returns the share of lookups that found a stored state
+     */
+    public double getHitRate() {
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    //endregion
+}
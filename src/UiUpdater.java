@@ -0,0 +1,85 @@
+import javax.swing.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Class: UiUpdater
+ * Author: Yannis Seimenis
+ * Description: Collects UI updates published from any thread and applies them on the Event Dispatch Thread
+ * in batches. Changed parts of the UI are marked with dirty flags which are coalesced, so however many
+ * changes are published before the EDT runs, only one invokeLater is queued and every part is updated once.
+ * Events that must keep their order (e.g. a block locking) are posted as tasks and run before the flags.
+ */
+public class UiUpdater {
+    /**
+     * Global variables
+     */
+    public static final int SCORE = 1;
+    public static final int QUEUE = 1 << 1;
+    public static final int HOLD = 1 << 2;
+    public static final int BLOCK = 1 << 3;
+    public static final int ALL = SCORE | QUEUE | HOLD | BLOCK;
+
+    private final IntConsumer applier;
+    private final AtomicInteger dirtyFlags = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+
+    /**
+     * UiUpdater(IntConsumer newApplier)
+     * UiUpdater constructor
+     * @param newApplier - Applies the dirty flags of a batch, called on the EDT
+     */
+    public UiUpdater(IntConsumer newApplier) {
+        applier = newApplier;
+    }
+
+    /**
+     * publish(int flags)
+     * Marks parts of the UI as changed
+     * @param flags - Dirty flags to add to the next batch
+     */
+    public void publish(int flags) {
+        dirtyFlags.getAndUpdate(current -> current | flags);
+        schedule();
+    }
+
+    /**
+     * post(Runnable event)
+     * Adds an event to the next batch, events run in the order they were posted
+     * @param event - Event to run on the EDT
+     */
+    public void post(Runnable event) {
+        events.add(event);
+        schedule();
+    }
+
+    /**
+     * schedule()
+     * Queues a flush on the EDT unless one is already queued
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * flush()
+     * Applies every event and dirty flag published since the last batch
+     */
+    private void flush() {
+        //Clear before reading so anything published while flushing schedules a new batch
+        scheduled.set(false);
+        Runnable event;
+        while ((event = events.poll()) != null) {
+            event.run();
+        }
+        int flags = dirtyFlags.getAndSet(0);
+        if (flags != 0) {
+            applier.accept(flags);
+        }
+    }
+}
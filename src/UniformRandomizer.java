@@ -0,0 +1,37 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Class: UniformRandomizer
+ * Author: Yannis Seimenis
+ * Description: Randomizer that picks every block type with equal probability and no memory.
+ */
+public class UniformRandomizer implements Randomizer {
+    /**
+     * Global variables
+     */
+    private final SeededRandom random;
+
+    /**
+     * UniformRandomizer(long seed)
+     * UniformRandomizer constructor
+     * @param seed - Seed of the sequence
+     */
+    public UniformRandomizer(long seed) {
+        random = new SeededRandom(seed);
+    }
+
+    @Override
+    public int nextBlock() {
+        return random.nextInt(BlockShapes.BLOCK_TYPES);
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        random.setState(in.getLong());
+    }
+}
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Class: WeightTuner
+ * Author: Yannis Seimenis
+ * Description: Genetic algorithm tuning the AutoPlayer weights. Every generation each weight vector of the
+ * population plays the same set of seeded headless games, all games of the generation running in parallel
+ * on a fork-join pool. Fitness is the mean score plus the mean lines cleared valued as single clears.
+ * The best vectors are kept and the rest of the population is bred from tournament winners by fitness
+ * weighted crossover and gaussian mutation. Progress is checkpointed atomically after every generation and
+ * a run started with an existing checkpoint resumes from it.
+ * Usage: java WeightTuner [checkpoint] [generations] [population] [games] [maxPieces] [seed] [threads]
+ */
+public class WeightTuner {
+    /**
+     * Global variables
+     */
+    private static final int LINE_VALUE = 40;
+    private static final double ELITE_SHARE = 0.2;
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final double MUTATION_RATE = 0.3;
+    private static final double MUTATION_SIZE = 0.2;
+
+    private final Path checkpoint;
+    private final int gamesPerCandidate;
+    private final int maxPieces;
+    private final int threads;
+
+    private final SeededRandom random;
+    private double[][] population;
+    private int generation = 0;
+    private double[] bestWeights;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * WeightTuner(Path newCheckpoint, int populationSize, int newGamesPerCandidate, int newMaxPieces, long seed, int newThreads)
+     * WeightTuner constructor, starts from a random population
+     * @param newCheckpoint - File the progress is saved to
+     * @param populationSize - Number of weight vectors per generation
+     * @param newGamesPerCandidate - Number of games every weight vector plays per generation
+     * @param newMaxPieces - Maximum number of pieces per game
+     * @param seed - Seed of the run
+     * @param newThreads - Number of worker threads
+     */
+    public WeightTuner(Path newCheckpoint, int populationSize, int newGamesPerCandidate, int newMaxPieces,
+                       long seed, int newThreads) {
+        checkpoint = newCheckpoint;
+        gamesPerCandidate = newGamesPerCandidate;
+        maxPieces = newMaxPieces;
+        threads = newThreads;
+        random = new SeededRandom(seed);
+        population = new double[populationSize][];
+        for (int i = 0; i < populationSize; i++) {
+            double[] weights = new double[AutoPlayer.WEIGHT_COUNT];
+            for (int j = 0; j < weights.length; j++) {
+                weights[j] = random.nextDouble() - 0.5;
+            }
+            population[i] = normalise(weights);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path checkpoint = Paths.get(args.length > 0 ? args[0] : "tuner-checkpoint.txt");
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int populationSize = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int maxPieces = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 0;
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        WeightTuner tuner = new WeightTuner(checkpoint, populationSize, games, maxPieces, seed, threads);
+        if (Files.exists(checkpoint)) {
+            tuner.load();
+            System.out.println("Resuming from generation " + tuner.generation + " of " + checkpoint);
+        }
+        tuner.run(generations);
+    }
+
+    /**
+     * run(int generations)
+     * Evolves the population until the total number of generations has been run
+     * @param generations - Total number of generations, including the ones of a resumed run
+     * @throws IOException - If the checkpoint can not be written
+     */
+    public void run(int generations) throws IOException {
+        long start = System.nanoTime();
+        int startGeneration = generation;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (generation < generations) {
+                double[] fitness = evaluate(pool);
+                report(fitness, generation - startGeneration + 1, System.nanoTime() - start);
+                population = breed(fitness);
+                generation++;
+                save();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * evaluate(ForkJoinPool pool)
+     * Plays the games of every weight vector of the population in parallel
+     * @param pool - Pool to run the games on
+     * @return - Returns the fitness of every weight vector
+     */
+    private double[] evaluate(ForkJoinPool pool) {
+        int candidates = population.length;
+        long[] scores = new long[candidates * gamesPerCandidate];
+        long[] lines = new long[scores.length];
+        //Every vector plays the same games so the comparison is fair
+        long generationSeed = BatchSimulator.gameSeed(random.getState(), generation);
+        pool.submit(() -> IntStream.range(0, scores.length).parallel().forEach(i -> {
+            Game game = new Game(BatchSimulator.gameSeed(generationSeed, i % gamesPerCandidate));
+            BatchSimulator.simulateGame(game, new AutoPlayer(population[i / gamesPerCandidate], false), maxPieces);
+            scores[i] = game.getScore();
+            lines[i] = game.getTotalLines();
+        })).join();
+
+        double[] fitness = new double[candidates];
+        for (int i = 0; i < scores.length; i++) {
+            fitness[i / gamesPerCandidate] += scores[i] + LINE_VALUE * lines[i];
+        }
+        for (int i = 0; i < candidates; i++) {
+            fitness[i] /= gamesPerCandidate;
+            if (fitness[i] > bestFitness) {
+                bestFitness = fitness[i];
+                bestWeights = population[i].clone();
+            }
+        }
+        return fitness;
+    }
+
+    /**
+     * breed(double[] fitness)
+     * Creates the next generation, the elite is kept and the rest are children of tournament winners
+     * @param fitness - Fitness of every weight vector of the current population
+     * @return - Returns the next population
+     */
+    private double[][] breed(double[] fitness) {
+        Integer[] order = new Integer[population.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+        double[][] next = new double[population.length][];
+        int elite = Math.max(1, (int) (population.length * ELITE_SHARE));
+        for (int i = 0; i < elite; i++) {
+            next[i] = population[order[i]];
+        }
+        for (int i = elite; i < next.length; i++) {
+            int a = tournament(fitness);
+            int b = tournament(fitness);
+            //Weighted average of the parents, the fitter parent pulls the child towards itself
+            double fitnessA = Math.max(fitness[a], 1e-9);
+            double fitnessB = Math.max(fitness[b], 1e-9);
+            double[] child = new double[AutoPlayer.WEIGHT_COUNT];
+            for (int j = 0; j < child.length; j++) {
+                child[j] = (population[a][j] * fitnessA + population[b][j] * fitnessB) / (fitnessA + fitnessB);
+            }
+            if (random.nextDouble() < MUTATION_RATE) {
+                child[random.nextInt(child.length)] += random.nextGaussian() * MUTATION_SIZE;
+            }
+            next[i] = normalise(child);
+        }
+        return next;
+    }
+
+    /**
+     * tournament(double[] fitness)
+     * @param fitness - Fitness of every weight vector
+     * @return - Returns the index of the fittest of a few randomly picked vectors
+     */
+    private int tournament(double[] fitness) {
+        int best = random.nextInt(fitness.length);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            int candidate = random.nextInt(fitness.length);
+            if (fitness[candidate] > fitness[best]) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * normalise(double[] weights)
+     * Scales a weight vector to unit length, only the direction of the vector changes the placements
+     * @param weights - Vector to scale in place
+     * @return - Returns the vector
+     */
+    private static double[] normalise(double[] weights) {
+        double length = 0;
+        for (double weight : weights) {
+            length += weight * weight;
+        }
+        length = Math.sqrt(length);
+        if (length > 0) {
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] /= length;
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * report(double[] fitness, int generationsRun, long elapsedNanos)
+     * Prints the result of a generation
+     * @param fitness - Fitness of every weight vector
+     * @param generationsRun - Number of generations run since the tuner was started
+     * @param elapsedNanos - Time since the tuner was started
+     */
+    private void report(double[] fitness, int generationsRun, long elapsedNanos) {
+        double mean = Arrays.stream(fitness).average().orElse(0);
+        double max = Arrays.stream(fitness).max().orElse(0);
+        System.out.printf(Locale.ROOT, "Generation %d: best %.1f, mean %.1f, overall best %.1f %s (%.2f generations/min)%n",
+                generation, max, mean, bestFitness, Arrays.toString(bestWeights),
+                generationsRun * 60e9 / elapsedNanos);
+    }
+
+    /**
+     * save()
+     * Writes the generation, random state, best vector and population to the checkpoint atomically
+     * @throws IOException - If the checkpoint can not be written
+     */
+    private void save() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("generation ").append(generation).append('\n');
+        builder.append("random ").append(random.getState()).append('\n');
+        builder.append("best ").append(bestFitness);
+        appendWeights(builder, bestWeights);
+        for (double[] weights : population) {
+            builder.append("candidate");
+            appendWeights(builder, weights);
+        }
+        AtomicFile.write(checkpoint, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendWeights(StringBuilder builder, double[] weights) {
+        for (double weight : weights) {
+            builder.append(' ').append(weight);
+        }
+        builder.append('\n');
+    }
+
+    /**
+     * load()
+     * Restores the progress saved in the checkpoint, the population size is taken from the checkpoint
+     * @throws IOException - If the checkpoint can not be read or is damaged
+     */
+    public void load() throws IOException {
+        List<double[]> candidates = new ArrayList<>();
+        for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+            String[] parts = line.trim().split(" ");
+            try {
+                switch (parts[0]) {
+                    case "generation" -> generation = Integer.parseInt(parts[1]);
+                    case "random" -> random.setState(Long.parseLong(parts[1]));
+                    case "best" -> {
+                        bestFitness = Double.parseDouble(parts[1]);
+                        bestWeights = parseWeights(parts, 2);
+                    }
+                    case "candidate" -> candidates.add(parseWeights(parts, 1));
+                    default -> throw new IOException("Unknown checkpoint line: " + line);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Damaged checkpoint line: " + line, e);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new IOException("Checkpoint has no population");
+        }
+        population = candidates.toArray(new double[0][]);
+    }
+
+    private static double[] parseWeights(String[] parts, int from) {
+        double[] weights = new double[AutoPlayer.WEIGHT_COUNT];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Double.parseDouble(parts[from + i]);
+        }
+        return weights;
+    }
+
+    //region Getters
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public double[] getBestWeights() {
+        return bestWeights == null ? null : bestWeights.clone();
+    }
+
+    public double getBestFitness() {
+        return bestFitness;
+    }
+
+    //endregion
+}